@@ -19,6 +19,7 @@
 package org.apache.fineract.cn.identity.api.v1.client;
 
 import org.apache.fineract.cn.api.annotation.ThrowsExceptions;
+import org.apache.fineract.cn.identity.api.v1.domain.ApplicationPermissionUserEnabled;
 import org.apache.fineract.cn.identity.api.v1.domain.Authentication;
 import org.apache.fineract.cn.identity.api.v1.domain.CallEndpointSet;
 import org.apache.fineract.cn.identity.api.v1.domain.Password;
@@ -27,6 +28,8 @@ import org.apache.fineract.cn.identity.api.v1.domain.PermittableGroup;
 import org.apache.fineract.cn.identity.api.v1.domain.Role;
 import org.apache.fineract.cn.identity.api.v1.domain.RoleIdentifier;
 import org.apache.fineract.cn.identity.api.v1.domain.User;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportReport;
+import org.apache.fineract.cn.identity.api.v1.domain.UserPage;
 import org.apache.fineract.cn.identity.api.v1.domain.UserWithPassword;
 import java.util.List;
 import java.util.Set;
@@ -117,6 +120,13 @@ public interface IdentityManager extends Anubis {
           produces = {MediaType.ALL_VALUE})
   void deleteRole(@PathVariable("identifier") String identifier);
 
+  @RequestMapping(value = "/users", method = RequestMethod.GET,
+          consumes = {MediaType.APPLICATION_JSON_VALUE},
+          produces = {MediaType.ALL_VALUE})
+  UserPage getUsersWithRole(@RequestParam("role") String identifier,
+                            @RequestParam("pageSize") int pageSize,
+                            @RequestParam(value = "pageToken", required = false) String pageToken);
+
   @RequestMapping(value = "/users", method = RequestMethod.POST,
       consumes = {MediaType.APPLICATION_JSON_VALUE},
       produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -126,6 +136,12 @@ public interface IdentityManager extends Anubis {
   })
   void createUser(@RequestBody UserWithPassword user);
 
+  @RequestMapping(value = "/users/import", method = RequestMethod.POST,
+      consumes = {MediaType.APPLICATION_JSON_VALUE},
+      produces = {MediaType.APPLICATION_JSON_VALUE})
+  @ThrowsException(status = HttpStatus.BAD_REQUEST, exception = UserValidationException.class)
+  UserImportReport importUsers(@RequestBody List<UserWithPassword> users);
+
   @RequestMapping(value = "/users/{useridentifier}/roleIdentifier", method = RequestMethod.PUT,
           consumes = {MediaType.APPLICATION_JSON_VALUE},
           produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -151,6 +167,12 @@ public interface IdentityManager extends Anubis {
       produces = {MediaType.ALL_VALUE})
   List<User> getUsers();
 
+  @RequestMapping(value = "/users", method = RequestMethod.GET,
+      consumes = {MediaType.APPLICATION_JSON_VALUE},
+      produces = {MediaType.ALL_VALUE})
+  UserPage getUsersPage(@RequestParam("pageSize") int pageSize,
+                        @RequestParam(value = "pageToken", required = false) String pageToken);
+
   @RequestMapping(value = "/applications", method = RequestMethod.GET,
           consumes = {MediaType.APPLICATION_JSON_VALUE},
           produces = {MediaType.ALL_VALUE})
@@ -235,6 +257,12 @@ public interface IdentityManager extends Anubis {
                                               @PathVariable("useridentifier") String userIdentifier,
                                               Boolean enabled);
 
+  @RequestMapping(value = "/users/applications/{applicationidentifier}/permissions/enabled", method = RequestMethod.PUT,
+          consumes = {MediaType.APPLICATION_JSON_VALUE},
+          produces = {MediaType.ALL_VALUE})
+  void setApplicationPermissionsEnabledForUsers(@PathVariable("applicationidentifier") String applicationIdentifier,
+                                                @RequestBody List<ApplicationPermissionUserEnabled> permissionUsers);
+
   @RequestMapping(value = "/applications/{applicationidentifier}/permissions/{permissionidentifier}/users/{useridentifier}/enabled", method = RequestMethod.GET,
           consumes = {MediaType.APPLICATION_JSON_VALUE},
           produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -251,4 +279,9 @@ public interface IdentityManager extends Anubis {
           consumes = {MediaType.APPLICATION_JSON_VALUE},
           produces = {MediaType.ALL_VALUE})
   ApplicationSignatureSet createSignatureSet();
+
+  @RequestMapping(value = "/tenant/_reload", method = RequestMethod.POST,
+          consumes = {MediaType.APPLICATION_JSON_VALUE},
+          produces = {MediaType.ALL_VALUE})
+  void reloadTenant();
 }
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.api.v1.domain;
+
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Whether a user has enabled a permission of an application.  Used to set many such flags for one application at
+ * once.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ApplicationPermissionUserEnabled {
+  @NotNull
+  private String permittableGroupIdentifier;
+
+  @NotNull
+  private String userIdentifier;
+
+  private boolean enabled;
+
+  public ApplicationPermissionUserEnabled() { }
+
+  public ApplicationPermissionUserEnabled(
+      final String permittableGroupIdentifier,
+      final String userIdentifier,
+      final boolean enabled) {
+    this.permittableGroupIdentifier = permittableGroupIdentifier;
+    this.userIdentifier = userIdentifier;
+    this.enabled = enabled;
+  }
+
+  public String getPermittableGroupIdentifier() {
+    return permittableGroupIdentifier;
+  }
+
+  public void setPermittableGroupIdentifier(String permittableGroupIdentifier) {
+    this.permittableGroupIdentifier = permittableGroupIdentifier;
+  }
+
+  public String getUserIdentifier() {
+    return userIdentifier;
+  }
+
+  public void setUserIdentifier(String userIdentifier) {
+    this.userIdentifier = userIdentifier;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof ApplicationPermissionUserEnabled))
+      return false;
+    ApplicationPermissionUserEnabled that = (ApplicationPermissionUserEnabled) o;
+    return enabled == that.enabled &&
+        Objects.equals(permittableGroupIdentifier, that.permittableGroupIdentifier) &&
+        Objects.equals(userIdentifier, that.userIdentifier);
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash(permittableGroupIdentifier, userIdentifier, enabled);
+  }
+
+  @Override public String toString() {
+    return "ApplicationPermissionUserEnabled{" +
+        "permittableGroupIdentifier='" + permittableGroupIdentifier + '\'' +
+        ", userIdentifier='" + userIdentifier + '\'' +
+        ", enabled=" + enabled +
+        '}';
+  }
+}
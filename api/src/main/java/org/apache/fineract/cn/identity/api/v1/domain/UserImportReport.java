@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.api.v1.domain;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The result of a user import: one result per row read, how many users were imported, and how long it took.  If the
+ * input could not be read to its end, error says where reading stopped; the rows before that point were still
+ * imported.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class UserImportReport {
+  private List<UserImportResult> results;
+  private int importedCount;
+  private int rejectedCount;
+  private long elapsedMillis;
+  private double usersPerSecond;
+  private String error;
+
+  public UserImportReport() { }
+
+  public UserImportReport(
+      final List<UserImportResult> results,
+      final int importedCount,
+      final int rejectedCount,
+      final long elapsedMillis,
+      final double usersPerSecond,
+      final String error) {
+    this.results = results;
+    this.importedCount = importedCount;
+    this.rejectedCount = rejectedCount;
+    this.elapsedMillis = elapsedMillis;
+    this.usersPerSecond = usersPerSecond;
+    this.error = error;
+  }
+
+  public List<UserImportResult> getResults() {
+    return results;
+  }
+
+  public void setResults(List<UserImportResult> results) {
+    this.results = results;
+  }
+
+  public int getImportedCount() {
+    return importedCount;
+  }
+
+  public void setImportedCount(int importedCount) {
+    this.importedCount = importedCount;
+  }
+
+  public int getRejectedCount() {
+    return rejectedCount;
+  }
+
+  public void setRejectedCount(int rejectedCount) {
+    this.rejectedCount = rejectedCount;
+  }
+
+  public long getElapsedMillis() {
+    return elapsedMillis;
+  }
+
+  public void setElapsedMillis(long elapsedMillis) {
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public double getUsersPerSecond() {
+    return usersPerSecond;
+  }
+
+  public void setUsersPerSecond(double usersPerSecond) {
+    this.usersPerSecond = usersPerSecond;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof UserImportReport))
+      return false;
+    UserImportReport that = (UserImportReport) o;
+    return importedCount == that.importedCount &&
+        rejectedCount == that.rejectedCount &&
+        elapsedMillis == that.elapsedMillis &&
+        Double.compare(that.usersPerSecond, usersPerSecond) == 0 &&
+        Objects.equals(results, that.results) &&
+        Objects.equals(error, that.error);
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash(results, importedCount, rejectedCount, elapsedMillis, usersPerSecond, error);
+  }
+
+  @Override public String toString() {
+    return "UserImportReport{" +
+        "results=" + results +
+        ", importedCount=" + importedCount +
+        ", rejectedCount=" + rejectedCount +
+        ", elapsedMillis=" + elapsedMillis +
+        ", usersPerSecond=" + usersPerSecond +
+        ", error='" + error + '\'' +
+        '}';
+  }
+}
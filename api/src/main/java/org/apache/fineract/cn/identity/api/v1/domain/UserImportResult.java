@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.api.v1.domain;
+
+import java.util.Objects;
+
+/**
+ * The outcome of importing one row of a user import.  Rows are numbered from 1 in the order they were sent.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class UserImportResult {
+  public enum Status {
+    IMPORTED,
+    ALREADY_EXISTS,
+    INVALID,
+    FAILED
+  }
+
+  private int row;
+  private String identifier;
+  private Status status;
+  private String message;
+
+  public UserImportResult() { }
+
+  public UserImportResult(final int row, final String identifier, final Status status, final String message) {
+    this.row = row;
+    this.identifier = identifier;
+    this.status = status;
+    this.message = message;
+  }
+
+  public int getRow() {
+    return row;
+  }
+
+  public void setRow(int row) {
+    this.row = row;
+  }
+
+  public String getIdentifier() {
+    return identifier;
+  }
+
+  public void setIdentifier(String identifier) {
+    this.identifier = identifier;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof UserImportResult))
+      return false;
+    UserImportResult that = (UserImportResult) o;
+    return row == that.row &&
+        Objects.equals(identifier, that.identifier) &&
+        status == that.status &&
+        Objects.equals(message, that.message);
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash(row, identifier, status, message);
+  }
+
+  @Override public String toString() {
+    return "UserImportResult{" +
+        "row=" + row +
+        ", identifier='" + identifier + '\'' +
+        ", status=" + status +
+        ", message='" + message + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.api.v1.domain;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of users.  To read the next page, pass nextPageToken as the pageToken of the next request.  The token is
+ * opaque, and is null on the last page.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class UserPage {
+  private List<User> users;
+  private String nextPageToken;
+
+  public UserPage() { }
+
+  public UserPage(final List<User> users, final String nextPageToken) {
+    this.users = users;
+    this.nextPageToken = nextPageToken;
+  }
+
+  public List<User> getUsers() {
+    return users;
+  }
+
+  public void setUsers(List<User> users) {
+    this.users = users;
+  }
+
+  public String getNextPageToken() {
+    return nextPageToken;
+  }
+
+  public void setNextPageToken(String nextPageToken) {
+    this.nextPageToken = nextPageToken;
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof UserPage))
+      return false;
+    UserPage userPage = (UserPage) o;
+    return Objects.equals(users, userPage.users) && Objects.equals(nextPageToken, userPage.nextPageToken);
+  }
+
+  @Override public int hashCode() {
+    return Objects.hash(users, nextPageToken);
+  }
+
+  @Override public String toString() {
+    return "UserPage{" +
+        "users=" + users +
+        ", nextPageToken='" + nextPageToken + '\'' +
+        '}';
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.api.v1.events;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sent once for a bulk change of the enabled flags of an application's permissions, in place of one
+ * ApplicationPermissionUserEvent per flag.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ApplicationPermissionUsersEvent {
+  private String applicationIdentifier;
+  private List<ApplicationPermissionUserEvent> permissionUsers;
+
+  public ApplicationPermissionUsersEvent() {
+  }
+
+  public ApplicationPermissionUsersEvent(String applicationIdentifier, List<ApplicationPermissionUserEvent> permissionUsers) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.permissionUsers = permissionUsers;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public void setApplicationIdentifier(String applicationIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+  }
+
+  public List<ApplicationPermissionUserEvent> getPermissionUsers() {
+    return permissionUsers;
+  }
+
+  public void setPermissionUsers(List<ApplicationPermissionUserEvent> permissionUsers) {
+    this.permissionUsers = permissionUsers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    ApplicationPermissionUsersEvent that = (ApplicationPermissionUsersEvent) o;
+    return Objects.equals(applicationIdentifier, that.applicationIdentifier) &&
+            Objects.equals(permissionUsers, that.permissionUsers);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(applicationIdentifier, permissionUsers);
+  }
+
+  @Override
+  public String toString() {
+    return "ApplicationPermissionUsersEvent{" +
+            "applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", permissionUsers=" + permissionUsers +
+            '}';
+  }
+}
@@ -47,6 +47,7 @@ public interface EventConstants {
   String OPERATION_POST_APPLICATION_PERMISSION = "post-application-permission";
   String OPERATION_DELETE_APPLICATION_PERMISSION = "delete-application-permission";
   String OPERATION_PUT_APPLICATION_PERMISSION_USER_ENABLED = "put-application-permission-user-enabled";
+  String OPERATION_PUT_APPLICATION_PERMISSION_USERS_ENABLED = "put-application-permission-users-enabled";
 
   String SELECTOR_AUTHENTICATE = OPERATION_HEADER + " = '" + OPERATION_AUTHENTICATE + "'";
 
@@ -68,4 +69,5 @@ public interface EventConstants {
   String SELECTOR_POST_APPLICATION_PERMISSION = OPERATION_HEADER + " = '" + OPERATION_POST_APPLICATION_PERMISSION + "'";
   String SELECTOR_DELETE_APPLICATION_PERMISSION = OPERATION_HEADER + " = '" + OPERATION_DELETE_APPLICATION_PERMISSION + "'";
   String SELECTOR_PUT_APPLICATION_PERMISSION_USER_ENABLED = OPERATION_HEADER + " = '" + OPERATION_PUT_APPLICATION_PERMISSION_USER_ENABLED + "'";
+  String SELECTOR_PUT_APPLICATION_PERMISSION_USERS_ENABLED = OPERATION_HEADER + " = '" + OPERATION_PUT_APPLICATION_PERMISSION_USERS_ENABLED + "'";
 }
@@ -65,7 +65,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT,
         classes = {AbstractIdentityTest.TestConfiguration.class})
-@TestPropertySource(properties = {"cassandra.cl.read = LOCAL_QUORUM", "cassandra.cl.write = LOCAL_QUORUM", "cassandra.cl.delete = LOCAL_QUORUM", "identity.token.refresh.secureCookie = false", "identity.passwordExpiresInDays = 93"})
+@TestPropertySource(properties = {"cassandra.cl.read = LOCAL_QUORUM", "cassandra.cl.write = LOCAL_QUORUM", "cassandra.cl.delete = LOCAL_QUORUM", "identity.token.refresh.secureCookie = false", "identity.passwordExpiresInDays = 93", "firebase.verifier = offline", "identity.jetty.maxThreads = " + AbstractIdentityTest.JETTY_MAX_THREADS})
 public class AbstractIdentityTest extends SuiteTestEnvironment {
   @Configuration
   @EnableApiFactory
@@ -78,6 +78,7 @@ public class AbstractIdentityTest extends SuiteTestEnvironment {
     }
   }
 
+  static final int JETTY_MAX_THREADS = 16;
   static final String ADMIN_PASSWORD = "golden_osiris";
   static final String ADMIN_ROLE = "pharaoh";
   static final String ADMIN_IDENTIFIER = "antony";
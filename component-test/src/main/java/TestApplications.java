@@ -17,6 +17,7 @@
  * under the License.
  */
 import org.apache.fineract.cn.identity.api.v1.PermittableGroupIds;
+import org.apache.fineract.cn.identity.api.v1.domain.ApplicationPermissionUserEnabled;
 import org.apache.fineract.cn.identity.api.v1.domain.Authentication;
 import org.apache.fineract.cn.identity.api.v1.domain.CallEndpointSet;
 import org.apache.fineract.cn.identity.api.v1.domain.Permission;
@@ -24,6 +25,7 @@ import org.apache.fineract.cn.identity.api.v1.domain.User;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationCallEndpointSetEvent;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionEvent;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionUserEvent;
+import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionUsersEvent;
 import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
@@ -129,6 +131,52 @@ public class TestApplications extends AbstractIdentityTest {
     }
   }
 
+  @Test
+  public void testBulkApplicationPermissionUserApproval() throws InterruptedException {
+    final ApplicationSignatureTestData appPlusSig;
+    final Permission roleManagementPermission;
+    try (final AutoUserContext ignored
+                 = tenantApplicationSecurityEnvironment.createAutoSeshatContext()) {
+      appPlusSig = setApplicationSignature();
+
+      roleManagementPermission = new Permission(
+              PermittableGroupIds.ROLE_MANAGEMENT,
+              Collections.singleton(AllowedOperation.READ));
+
+      createApplicationPermission(appPlusSig.getApplicationIdentifier(), roleManagementPermission);
+    }
+
+    final String user1id = createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
+    final String user2id = createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
+    final String applicationIdentifier = appPlusSig.getApplicationIdentifier();
+    final String permittableGroupIdentifier = roleManagementPermission.getPermittableEndpointGroupIdentifier();
+
+    try (final AutoUserContext ignored = loginAdmin()) {
+      getTestSubject().setApplicationPermissionsEnabledForUsers(applicationIdentifier, Arrays.asList(
+              new ApplicationPermissionUserEnabled(permittableGroupIdentifier, user1id, true),
+              new ApplicationPermissionUserEnabled(permittableGroupIdentifier, user2id, true)));
+
+      Assert.assertTrue(eventRecorder.wait(EventConstants.OPERATION_PUT_APPLICATION_PERMISSION_USERS_ENABLED,
+              new ApplicationPermissionUsersEvent(applicationIdentifier, Arrays.asList(
+                      new ApplicationPermissionUserEvent(applicationIdentifier, permittableGroupIdentifier, user1id),
+                      new ApplicationPermissionUserEvent(applicationIdentifier, permittableGroupIdentifier, user2id)))));
+
+      Assert.assertTrue(getTestSubject().getApplicationPermissionEnabledForUser(
+              applicationIdentifier, permittableGroupIdentifier, user1id));
+      Assert.assertTrue(getTestSubject().getApplicationPermissionEnabledForUser(
+              applicationIdentifier, permittableGroupIdentifier, user2id));
+
+      try {
+        getTestSubject().setApplicationPermissionsEnabledForUsers(applicationIdentifier, Collections.singletonList(
+                new ApplicationPermissionUserEnabled(permittableGroupIdentifier, "nonexistentuser", true)));
+        Assert.fail("Should not be able to enable a permission for a user who doesn't exist.");
+      }
+      catch (final NotFoundException expected) {
+        //noinspection EmptyCatchBlock
+      }
+    }
+  }
+
   @Test
   public void testApplicationPermissionUserApprovalProvisioning() throws InterruptedException {
     final ApplicationSignatureTestData appPlusSig;
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.fineract.cn.api.context.AutoGuest;
+import org.apache.fineract.cn.api.util.NotFoundException;
+import org.apache.fineract.cn.identity.api.v1.domain.Authentication;
+import org.apache.fineract.cn.lang.AutoTenantContext;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.apache.fineract.cn.test.env.TestEnvironment;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Logs in from many more clients at once than the servlet container has threads (JETTY_MAX_THREADS).  Every login
+ * must still complete with the right result.
+ */
+public class TestAuthenticationConcurrency extends AbstractIdentityTest {
+  private static final int CONCURRENT_LOGINS = 64;
+
+  @Test
+  public void concurrentLoginsSucceed() throws Exception {
+    final String tenant = TenantContextHolder.checkedGetIdentifier();
+    final ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_LOGINS);
+    try {
+      final List<CompletableFuture<Authentication>> logins = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+        logins.add(CompletableFuture.supplyAsync(() -> {
+          try (final AutoTenantContext ignored = new AutoTenantContext(tenant);
+               final AutoGuest ignored2 = new AutoGuest()) {
+            return getTestSubject().login(ADMIN_IDENTIFIER, TestEnvironment.encodePassword(ADMIN_PASSWORD));
+          }
+        }, clients));
+      }
+
+      for (final CompletableFuture<Authentication> login : logins) {
+        final Authentication authentication = login.get(60, TimeUnit.SECONDS);
+        Assert.assertNotNull(authentication);
+        Assert.assertNotNull(authentication.getAccessToken());
+        Assert.assertNotNull(authentication.getAccessTokenExpiration());
+        Assert.assertNotNull(authentication.getRefreshToken());
+      }
+    }
+    finally {
+      clients.shutdownNow();
+    }
+  }
+
+  @Test
+  public void concurrentFailedLoginsAreNotFound() throws Exception {
+    final String tenant = TenantContextHolder.checkedGetIdentifier();
+    final ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_LOGINS);
+    try {
+      final List<CompletableFuture<Boolean>> logins = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+        logins.add(CompletableFuture.supplyAsync(() -> {
+          try (final AutoTenantContext ignored = new AutoTenantContext(tenant);
+               final AutoGuest ignored2 = new AutoGuest()) {
+            getTestSubject().login(ADMIN_IDENTIFIER, TestEnvironment.encodePassword("set"));
+            return false;
+          }
+          catch (final NotFoundException e) {
+            return true;
+          }
+        }, clients));
+      }
+
+      for (final CompletableFuture<Boolean> login : logins)
+        Assert.assertTrue(login.get(60, TimeUnit.SECONDS));
+    }
+    finally {
+      clients.shutdownNow();
+    }
+  }
+}
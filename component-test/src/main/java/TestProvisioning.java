@@ -131,6 +131,17 @@ public class TestProvisioning extends AbstractIdentityTest {
     TenantContextHolder.clear();
   }
 
+  @Test
+  public void reloadTenantOfProvisionedTenantSucceeds() throws InterruptedException {
+    try (final AutoUserContext ignored = tenantApplicationSecurityEnvironment.createAutoSeshatContext()) {
+      getTestSubject().reloadTenant();
+    }
+
+    try (final AutoUserContext ignored = loginAdmin()) {
+      Assert.assertNotNull(getTestSubject().getUser(ADMIN_IDENTIFIER));
+    }
+  }
+
   private String systemTokenFromWrongKey()
   {
     final SystemAccessTokenSerializer.Specification tokenSpecification
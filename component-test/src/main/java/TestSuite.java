@@ -27,6 +27,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({
     TestApplications.class,
     TestAuthentication.class,
+    TestAuthenticationConcurrency.class,
     TestKeyRotation.class,
     //TestPasswords.class,
     TestPermittableGroups.class,
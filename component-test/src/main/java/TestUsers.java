@@ -25,14 +25,19 @@ import org.apache.fineract.cn.identity.api.v1.domain.Permission;
 import org.apache.fineract.cn.identity.api.v1.domain.Role;
 import org.apache.fineract.cn.identity.api.v1.domain.RoleIdentifier;
 import org.apache.fineract.cn.identity.api.v1.domain.User;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportReport;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportResult;
+import org.apache.fineract.cn.identity.api.v1.domain.UserPage;
 import org.apache.fineract.cn.identity.api.v1.domain.UserWithPassword;
 import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
 import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
 import org.apache.fineract.cn.api.context.AutoUserContext;
+import org.apache.fineract.cn.api.util.InvalidTokenException;
 import org.apache.fineract.cn.test.env.TestEnvironment;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -75,6 +80,65 @@ public class TestUsers extends AbstractIdentityTest {
     }
   }
 
+  @Test
+  public void testUsersArePaged() throws InterruptedException {
+    createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
+    createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
+
+    try (final AutoUserContext ignore = loginAdmin()) {
+      final Set<User> paged = new HashSet<>();
+      String pageToken = null;
+      do {
+        final UserPage page = getTestSubject().getUsersPage(1, pageToken);
+        Assert.assertTrue(page.getUsers().size() <= 1);
+        paged.addAll(page.getUsers());
+        pageToken = page.getNextPageToken();
+      } while (pageToken != null);
+
+      Assert.assertEquals(new HashSet<>(getTestSubject().getUsers()), paged);
+    }
+  }
+
+  @Test
+  public void testInvalidUserPageTokenFails() throws InterruptedException {
+    try (final AutoUserContext ignore = loginAdmin()) {
+      try {
+        getTestSubject().getUsersPage(10, "notatoken");
+        Assert.fail("Should not be able to read a page with a token the service did not issue.");
+      }
+      catch (final IllegalArgumentException expected) {
+        //noinspection EmptyCatchBlock
+      }
+    }
+  }
+
+  @Test
+  public void testImportUsers() throws InterruptedException {
+    final String existing = createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
+    final String first = testEnvironment.generateUniqueIdentifier("Ahmes");
+    final String second = testEnvironment.generateUniqueIdentifier("Ahmes");
+
+    try (final AutoUserContext ignore = loginAdmin()) {
+      final UserImportReport report = getTestSubject().importUsers(Arrays.asList(
+          new UserWithPassword(first, ADMIN_ROLE, TestEnvironment.encodePassword(AHMES_PASSWORD)),
+          new UserWithPassword(existing, ADMIN_ROLE, TestEnvironment.encodePassword(AHMES_PASSWORD)),
+          new UserWithPassword(second, "scribe", TestEnvironment.encodePassword(AHMES_FRIENDS_PASSWORD))));
+
+      Assert.assertEquals(2, report.getImportedCount());
+      Assert.assertEquals(1, report.getRejectedCount());
+      Assert.assertEquals(UserImportResult.Status.ALREADY_EXISTS, report.getResults().get(1).getStatus());
+
+      Assert.assertTrue(eventRecorder.wait(EventConstants.OPERATION_POST_USER, first));
+      Assert.assertTrue(eventRecorder.wait(EventConstants.OPERATION_POST_USER, second));
+
+      Assert.assertEquals(new User(second, "scribe"), getTestSubject().getUser(second));
+    }
+
+    final Authentication firstAuthentication =
+        getTestSubject().login(first, TestEnvironment.encodePassword(AHMES_PASSWORD));
+    Assert.assertNotNull(firstAuthentication);
+  }
+
   @Test
   public void testChangeUserRole() throws InterruptedException {
     final String userIdentifier = createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
@@ -102,6 +166,60 @@ public class TestUsers extends AbstractIdentityTest {
     }
   }
 
+  @Test
+  public void testUsersWithRoleArePagedAndFollowRoleChanges() throws InterruptedException {
+    final String first = createUserWithNonexpiredPassword(AHMES_PASSWORD, "scribe");
+    final String second = createUserWithNonexpiredPassword(AHMES_PASSWORD, "scribe");
+
+    try (final AutoUserContext ignore = loginAdmin()) {
+      final Set<User> paged = new HashSet<>();
+      String pageToken = null;
+      do {
+        final UserPage page = getTestSubject().getUsersWithRole("scribe", 1, pageToken);
+        Assert.assertTrue(page.getUsers().size() <= 1);
+        paged.addAll(page.getUsers());
+        pageToken = page.getNextPageToken();
+      } while (pageToken != null);
+
+      Assert.assertTrue(paged.contains(new User(first, "scribe")));
+      Assert.assertTrue(paged.contains(new User(second, "scribe")));
+
+      getTestSubject().changeUserRole(first, new RoleIdentifier(ADMIN_ROLE));
+      Assert.assertTrue(eventRecorder.wait(EventConstants.OPERATION_PUT_USER_ROLEIDENTIFIER, first));
+
+      final List<User> scribes = getTestSubject().getUsersWithRole("scribe", 1000, null).getUsers();
+      Assert.assertFalse(scribes.contains(new User(first, "scribe")));
+      Assert.assertTrue(scribes.contains(new User(second, "scribe")));
+      Assert.assertTrue(getTestSubject().getUsersWithRole(ADMIN_ROLE, 1000, null).getUsers()
+          .contains(new User(first, ADMIN_ROLE)));
+    }
+  }
+
+  @Test
+  public void testUsersWithRoleNeedIdentityManagement() throws InterruptedException {
+    final String roleManager;
+    final String identityManager;
+    try (final AutoUserContext ignore = loginAdmin()) {
+      roleManager = createUserWithNonexpiredPassword(AHMES_PASSWORD, createRoleManagementRole());
+      identityManager = createUserWithNonexpiredPassword(AHMES_PASSWORD, createRole(buildUserPermission()));
+    }
+
+    try (final AutoUserContext ignore = loginUser(roleManager, AHMES_PASSWORD)) {
+      try {
+        getTestSubject().getUsersWithRole(ADMIN_ROLE, 10, null);
+        Assert.fail("Role management alone should not permit listing users.");
+      }
+      catch (final InvalidTokenException expected) {
+        //noinspection EmptyCatchBlock
+      }
+    }
+
+    try (final AutoUserContext ignore = loginUser(identityManager, AHMES_PASSWORD)) {
+      Assert.assertTrue(getTestSubject().getUsersWithRole(ADMIN_ROLE, 1000, null).getUsers()
+          .contains(new User(ADMIN_IDENTIFIER, ADMIN_ROLE)));
+    }
+  }
+
   @Test
   public void testChangeAntonyRoleFails() throws InterruptedException {
     final String userIdentifier = createUserWithNonexpiredPassword(AHMES_PASSWORD, ADMIN_ROLE);
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
+import org.apache.fineract.cn.anubis.api.v1.domain.TokenPermission;
+import org.apache.fineract.cn.identity.internal.repository.AllowedOperationType;
+import org.apache.fineract.cn.identity.internal.repository.PermissionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the set based permission computation used previously with the mask based computation, for a role with
+ * many permittables.  Run with "gradlew jmh"; the gc profiler reports the allocation rate per operation
+ * (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PermissionAlgebraBenchmark {
+  private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+  @Param({"100", "500"})
+  private int permittableCount;
+
+  private List<String> paths;
+  private List<String> methods;
+  private List<PermissionType> userPermissions;
+  private List<PermissionType> requestedPermissions;
+
+  @Setup
+  public void setup() {
+    paths = new ArrayList<>();
+    methods = new ArrayList<>();
+    userPermissions = new ArrayList<>();
+    requestedPermissions = new ArrayList<>();
+    for (int i = 0; i < permittableCount; i++) {
+      //Each path is reachable with several methods, as for typical REST resources.
+      paths.add("service-v1/resources/" + (i / METHODS.length) + "/*");
+      methods.add(METHODS[i % METHODS.length]);
+
+      final String group = "group" + (i % 50);
+      userPermissions.add(new PermissionType(group, new HashSet<>(AllowedOperationType.ALL)));
+      requestedPermissions.add(new PermissionType(group,
+          new HashSet<>(Collections.singleton(AllowedOperationType.values()[i % 3]))));
+    }
+  }
+
+  @Benchmark
+  public Set<TokenPermission> tokenPermissionsWithSets() {
+    final Set<TokenPermission> tokenPermissions = new HashSet<>();
+    for (int i = 0; i < permittableCount; i++) {
+      final Set<AllowedOperation> allowedOperations = new HashSet<>();
+      allowedOperations.add(AllowedOperation.valueOf(
+          AllowedOperationType.fromHttpMethod(methods.get(i)).name()));
+      tokenPermissions.add(new TokenPermission(paths.get(i), allowedOperations));
+    }
+
+    final Map<String, Set<AllowedOperation>> allowedOperationsByPath = new HashMap<>();
+    tokenPermissions.forEach(tokenPermission -> allowedOperationsByPath
+        .computeIfAbsent(tokenPermission.getPath(), path -> new HashSet<>())
+        .addAll(tokenPermission.getAllowedOperations()));
+    return allowedOperationsByPath.entrySet().stream()
+        .map(x -> new TokenPermission(x.getKey(), x.getValue()))
+        .collect(Collectors.toSet());
+  }
+
+  @Benchmark
+  public Set<TokenPermission> tokenPermissionsWithMasks() {
+    final TokenPermissionAccumulator tokenPermissions = new TokenPermissionAccumulator();
+    for (int i = 0; i < permittableCount; i++) {
+      tokenPermissions.add(paths.get(i), AllowedOperationType.fromHttpMethod(methods.get(i)).mask());
+    }
+    return tokenPermissions.toTokenPermissions();
+  }
+
+  @Benchmark
+  public List<PermissionType> intersectWithSets() {
+    final Map<String, Set<AllowedOperationType>> keyed = new HashMap<>();
+    userPermissions.forEach(x -> keyed
+        .computeIfAbsent(x.getPermittableGroupIdentifier(), y -> new HashSet<>())
+        .addAll(x.getAllowedOperations()));
+
+    final List<PermissionType> ret = new ArrayList<>();
+    for (final PermissionType requested : requestedPermissions) {
+      final Set<AllowedOperationType> intersection = new HashSet<>(keyed.get(requested.getPermittableGroupIdentifier()));
+      intersection.retainAll(requested.getAllowedOperations());
+      if (!intersection.isEmpty())
+        ret.add(new PermissionType(requested.getPermittableGroupIdentifier(), intersection));
+    }
+    return ret;
+  }
+
+  @Benchmark
+  public List<PermissionType> intersectWithMasks() {
+    final Map<String, Integer> keyed = AuthenticationCommandHandler.transformToSearchablePermissions(userPermissions);
+
+    final List<PermissionType> ret = new ArrayList<>();
+    for (final PermissionType requested : requestedPermissions) {
+      final int intersection = AuthenticationCommandHandler.intersectMasks(
+          keyed.get(requested.getPermittableGroupIdentifier()),
+          AllowedOperationType.maskOf(requested.getAllowedOperations()));
+      if (intersection != 0)
+        ret.add(new PermissionType(requested.getPermittableGroupIdentifier(), AllowedOperationType.fromMask(intersection)));
+    }
+    return ret;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import java.math.BigInteger;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares looking up the latest valid key via the secondary index on isis_signatures with reading the single
+ * partition of isis_signature_keys.  Requires a running cassandra, by default on 127.0.0.1; set the system property
+ * cassandra.contactPoint to use another one.  Run with "gradlew jmh"; sample time mode reports the p0.99 percentile
+ * of each lookup.  A single node understates the difference, since on a cluster the index query asks every node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureKeyLookupBenchmark {
+  private static final String KEYSPACE = "identity_signature_benchmark";
+
+  @Param({"4", "64"})
+  private int keyCount;
+
+  private Cluster cluster;
+  private Session session;
+  private PreparedStatement selectValidLegacy;
+  private PreparedStatement selectKeySet;
+
+  @Setup
+  public void setup() {
+    cluster = Cluster.builder().addContactPoint(System.getProperty("cassandra.contactPoint", "127.0.0.1")).build();
+    final Session setupSession = cluster.connect();
+    setupSession.execute("CREATE KEYSPACE IF NOT EXISTS " + KEYSPACE
+        + " WITH replication = {'class': 'SimpleStrategy', 'replication_factor': 1}");
+    setupSession.close();
+    session = cluster.connect(KEYSPACE);
+
+    session.execute("CREATE TABLE IF NOT EXISTS " + Signatures.TABLE_NAME + " ("
+        + Signatures.KEY_TIMESTAMP_COLUMN + " text PRIMARY KEY, "
+        + Signatures.VALID_COLUMN + " boolean, "
+        + Signatures.PRIVATE_KEY_MOD_COLUMN + " varint, "
+        + Signatures.PRIVATE_KEY_EXP_COLUMN + " varint)");
+    session.execute("CREATE INDEX IF NOT EXISTS isis_signatures_valid_index ON "
+        + Signatures.TABLE_NAME + " (" + Signatures.VALID_COLUMN + ")");
+    session.execute("CREATE TABLE IF NOT EXISTS " + Signatures.KEY_SET_TABLE_NAME + " ("
+        + Signatures.KEY_SET_COLUMN + " text, "
+        + Signatures.KEY_TIMESTAMP_COLUMN + " text, "
+        + Signatures.VALID_COLUMN + " boolean, "
+        + Signatures.PRIVATE_KEY_MOD_COLUMN + " varint, "
+        + Signatures.PRIVATE_KEY_EXP_COLUMN + " varint, "
+        + "PRIMARY KEY (" + Signatures.KEY_SET_COLUMN + ", " + Signatures.KEY_TIMESTAMP_COLUMN + ")) "
+        + "WITH CLUSTERING ORDER BY (" + Signatures.KEY_TIMESTAMP_COLUMN + " DESC)");
+    session.execute("TRUNCATE " + Signatures.TABLE_NAME);
+    session.execute("TRUNCATE " + Signatures.KEY_SET_TABLE_NAME);
+
+    final PreparedStatement insertLegacy = session.prepare("INSERT INTO " + Signatures.TABLE_NAME + " ("
+        + Signatures.KEY_TIMESTAMP_COLUMN + ", " + Signatures.VALID_COLUMN + ", "
+        + Signatures.PRIVATE_KEY_MOD_COLUMN + ", " + Signatures.PRIVATE_KEY_EXP_COLUMN + ") VALUES (?, ?, ?, ?)");
+    final PreparedStatement insertKey = session.prepare("INSERT INTO " + Signatures.KEY_SET_TABLE_NAME + " ("
+        + Signatures.KEY_SET_COLUMN + ", " + Signatures.KEY_TIMESTAMP_COLUMN + ", " + Signatures.VALID_COLUMN + ", "
+        + Signatures.PRIVATE_KEY_MOD_COLUMN + ", " + Signatures.PRIVATE_KEY_EXP_COLUMN + ") VALUES (?, ?, ?, ?, ?)");
+    for (int i = 0; i < keyCount; i++) {
+      //As after several key rotations, only the two most recent keys are still valid.
+      final String keyTimestamp = String.format("2017_01_01T00_00_%04d", i);
+      final boolean valid = i >= keyCount - 2;
+      final BigInteger mod = BigInteger.valueOf(i);
+      session.execute(insertLegacy.bind(keyTimestamp, valid, mod, BigInteger.ONE));
+      session.execute(insertKey.bind(Signatures.KEY_SET, keyTimestamp, valid, mod, BigInteger.ONE));
+    }
+
+    selectValidLegacy = session.prepare("SELECT * FROM " + Signatures.TABLE_NAME
+        + " WHERE " + Signatures.VALID_COLUMN + " = ?");
+    selectKeySet = session.prepare("SELECT * FROM " + Signatures.KEY_SET_TABLE_NAME
+        + " WHERE " + Signatures.KEY_SET_COLUMN + " = ?");
+  }
+
+  @TearDown
+  public void tearDown() {
+    session.execute("DROP KEYSPACE IF EXISTS " + KEYSPACE);
+    cluster.close();
+  }
+
+  @Benchmark
+  public Optional<String> latestValidKeyViaIndex() {
+    return StreamSupport.stream(session.execute(selectValidLegacy.bind(true)).spliterator(), false)
+        .map(x -> x.getString(Signatures.KEY_TIMESTAMP_COLUMN))
+        .max(String::compareTo);
+  }
+
+  @Benchmark
+  public Optional<String> latestValidKeyViaKeySet() {
+    for (final Row row : session.execute(selectKeySet.bind(Signatures.KEY_SET))) {
+      if (row.getBool(Signatures.VALID_COLUMN))
+        return Optional.of(row.getString(Signatures.KEY_TIMESTAMP_COLUMN));
+    }
+    return Optional.empty();
+  }
+}
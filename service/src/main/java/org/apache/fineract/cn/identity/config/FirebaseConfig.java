@@ -18,40 +18,132 @@
  */
 package org.apache.fineract.cn.identity.config;
 
-import com.google.auth.oauth2.GoogleCredentials;
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.FirebaseOptions;
-import java.io.ByteArrayInputStream;
+import com.google.gson.Gson;
 import java.io.IOException;
-import java.io.InputStream;
-import javax.annotation.PostConstruct;
+import java.net.URL;
+import java.time.Clock;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.identity.internal.firebase.CachingFirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseInitializer;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.LocalKeySetFirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.OfflineFirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.SdkFirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.util.Base64Utils;
+import org.springframework.context.event.EventListener;
 
+/**
+ * Sets up verification of Firebase ID tokens.  firebase.verifier selects how tokens are verified:
+ * <ul>
+ *   <li>sdk: with the Firebase Admin SDK, initialized from firebase.serviceAccountKey (the default).  The SDK is
+ *   initialized on a background thread, at startup or, if firebase.initialization.mode is lazy, on first use,</li>
+ *   <li>local: against Google's signing certificates, fetched and refreshed by identity itself,</li>
+ *   <li>offline: accepting unsigned tokens, for component tests and benchmarks only.</li>
+ * </ul>
+ * Unless firebase.verificationCache.enabled is false, successful verifications are remembered until the token expires.
+ * The cache settings were first named firebase.verifier.cache.*, which cannot be written in YAML next to
+ * firebase.verifier; those names are still read if the new ones are not set.
+ */
 @Configuration
 public class FirebaseConfig {
 
   private final String configObject;
   private final String databaseUrl;
+  private final String verifier;
+  private FirebaseInitializer firebaseInitializer;
+  private LocalKeySetFirebaseTokenVerifier localKeySetVerifier;
+  private Logger logger;
 
   public FirebaseConfig(
-      @Value("${firebase.serviceAccountKey}") String configObject,
-      @Value("${firebase.databaseUrl}") String databaseUrl) {
+      @Value("${firebase.serviceAccountKey:}") String configObject,
+      @Value("${firebase.databaseUrl:}") String databaseUrl,
+      @Value("${firebase.verifier:sdk}") String verifier) {
     this.configObject = configObject;
     this.databaseUrl = databaseUrl;
+    this.verifier = verifier;
+  }
+
+  @Bean
+  public FirebaseInitializer firebaseInitializer(
+      @Value("${firebase.initialization.mode:background}") final String initialization,
+      @Value("${firebase.initialization.awaitMillis:5000}") final long awaitMillis,
+      @Value("${firebase.initialization.retryIntervalMillis:30000}") final long retryIntervalMillis,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
+    this.logger = logger;
+    this.firebaseInitializer
+        = new FirebaseInitializer(configObject, databaseUrl, awaitMillis, retryIntervalMillis, logger);
+    if ("sdk".equals(verifier) && !"lazy".equals(initialization))
+      firebaseInitializer.startInBackground();
+    return firebaseInitializer;
+  }
+
+  @Bean
+  public FirebaseTokenVerifier firebaseTokenVerifier(
+      @Value("${firebase.projectId:}") final String projectId,
+      @Value("${firebase.keys.url:" + LocalKeySetFirebaseTokenVerifier.GOOGLE_CERTIFICATES_URL + "}") final String keysUrl,
+      @Value("${firebase.keys.refreshIntervalSeconds:3600}") final long keysRefreshIntervalSeconds,
+      @Value("${firebase.verificationCache.enabled:${firebase.verifier.cache.enabled:true}}")
+      final boolean cacheEnabled,
+      @Value("${firebase.verificationCache.maximumSize:${firebase.verifier.cache.maximumSize:10000}}")
+      final long cacheMaximumSize,
+      @Value("${firebase.verificationCache.expireAfterWriteSeconds:${firebase.verifier.cache.expireAfterWriteSeconds:3600}}")
+      final long cacheExpireAfterWriteSeconds,
+      final FirebaseInitializer firebaseInitializer,
+      @Qualifier(IdentityConstants.JSON_SERIALIZER_NAME) final Gson gson,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) throws IOException {
+    final FirebaseTokenVerifier ret;
+    switch (verifier) {
+      case "sdk":
+        ret = new SdkFirebaseTokenVerifier(firebaseInitializer);
+        break;
+      case "local":
+        localKeySetVerifier = new LocalKeySetFirebaseTokenVerifier(projectId,
+            LocalKeySetFirebaseTokenVerifier.certificatesFrom(new URL(keysUrl), gson),
+            keysRefreshIntervalSeconds, logger);
+        localKeySetVerifier.start();
+        ret = localKeySetVerifier;
+        break;
+      case "offline":
+        logger.warn("Firebase tokens are not being verified.  This must never be used in production.");
+        ret = new OfflineFirebaseTokenVerifier();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown firebase.verifier: " + verifier);
+    }
+
+    if (!cacheEnabled)
+      return ret;
+
+    return new CachingFirebaseTokenVerifier(ret, cacheMaximumSize, cacheExpireAfterWriteSeconds, Clock.systemUTC());
   }
 
-  @PostConstruct
-  public void init() throws IOException {
-    InputStream serviceAccount = new ByteArrayInputStream(
-        Base64Utils.decodeFromString(configObject));
+  /**
+   * Reports how far Firebase initialization got while the rest of the service was starting, which is the startup time
+   * saved by not initializing Firebase synchronously.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void reportStartupTiming(final ApplicationReadyEvent event) {
+    if (!"sdk".equals(verifier) || firebaseInitializer == null)
+      return;
 
-    FirebaseOptions options = new FirebaseOptions.Builder()
-        .setCredentials(GoogleCredentials.fromStream(serviceAccount))
-        .setDatabaseUrl(databaseUrl)
-        .build();
+    final long startupMillis = System.currentTimeMillis() - event.getApplicationContext().getStartupDate();
+    if (firebaseInitializer.isReady())
+      logger.info("Service ready after {} ms; Firebase initialization took {} ms off the startup path.",
+          startupMillis, firebaseInitializer.getInitializationMillis());
+    else
+      logger.info("Service ready after {} ms; Firebase initialization is still pending and did not delay startup.",
+          startupMillis);
+  }
 
-    FirebaseApp.initializeApp(options);
+  @PreDestroy
+  public void stopRefreshingKeys() {
+    if (localKeySetVerifier != null)
+      localKeySetVerifier.stop();
   }
 }
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.config;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.EmbeddedServletContainerCustomizer;
+import org.springframework.boot.context.embedded.jetty.JettyEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Optionally caps the number of threads of the embedded Jetty with identity.jetty.maxThreads.  Spring Boot 1.4 has no
+ * property for this.  The cap includes Jetty's acceptor and selector threads.
+ */
+@Configuration
+public class JettyConfig {
+
+  @Bean
+  public EmbeddedServletContainerCustomizer jettyThreadPoolCustomizer(
+      @Value("${identity.jetty.maxThreads:0}") final int maxThreads) {
+    return container -> {
+      if (maxThreads <= 0 || !(container instanceof JettyEmbeddedServletContainerFactory))
+        return;
+
+      ((JettyEmbeddedServletContainerFactory) container).addServerCustomizers(server -> {
+        if (server.getThreadPool() instanceof QueuedThreadPool) {
+          final QueuedThreadPool threadPool = (QueuedThreadPool) server.getThreadPool();
+          threadPool.setMinThreads(Math.min(threadPool.getMinThreads(), maxThreads));
+          threadPool.setMaxThreads(maxThreads);
+        }
+      });
+    };
+  }
+}
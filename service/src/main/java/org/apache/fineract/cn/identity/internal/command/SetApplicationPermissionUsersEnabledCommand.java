@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command;
+
+import java.util.List;
+import org.apache.fineract.cn.identity.api.v1.domain.ApplicationPermissionUserEnabled;
+
+/**
+ * Sets the enabled flags of many users for the permissions of one application.
+ */
+@SuppressWarnings("unused")
+public class SetApplicationPermissionUsersEnabledCommand {
+  private String applicationIdentifier;
+  private List<ApplicationPermissionUserEnabled> permissionUsers;
+
+  public SetApplicationPermissionUsersEnabledCommand() {
+  }
+
+  public SetApplicationPermissionUsersEnabledCommand(String applicationIdentifier, List<ApplicationPermissionUserEnabled> permissionUsers) {
+    this.applicationIdentifier = applicationIdentifier;
+    this.permissionUsers = permissionUsers;
+  }
+
+  public String getApplicationIdentifier() {
+    return applicationIdentifier;
+  }
+
+  public void setApplicationIdentifier(String applicationIdentifier) {
+    this.applicationIdentifier = applicationIdentifier;
+  }
+
+  public List<ApplicationPermissionUserEnabled> getPermissionUsers() {
+    return permissionUsers;
+  }
+
+  public void setPermissionUsers(List<ApplicationPermissionUserEnabled> permissionUsers) {
+    this.permissionUsers = permissionUsers;
+  }
+
+  @Override
+  public String toString() {
+    //Only the count, since the command is logged and may hold thousands of flags.
+    return "SetApplicationPermissionUsersEnabledCommand{" +
+            "applicationIdentifier='" + applicationIdentifier + '\'' +
+            ", permissionUsers=" + (permissionUsers == null ? 0 : permissionUsers.size()) +
+            '}';
+  }
+}
@@ -25,6 +25,7 @@ import org.apache.fineract.cn.command.annotation.EventEmitter;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationCallEndpointSetEvent;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionEvent;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionUserEvent;
+import org.apache.fineract.cn.identity.api.v1.events.ApplicationPermissionUsersEvent;
 import org.apache.fineract.cn.identity.api.v1.events.ApplicationSignatureEvent;
 import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
 import org.apache.fineract.cn.identity.internal.command.ChangeApplicationCallEndpointSetCommand;
@@ -34,6 +35,7 @@ import org.apache.fineract.cn.identity.internal.command.DeleteApplicationCallEnd
 import org.apache.fineract.cn.identity.internal.command.DeleteApplicationCommand;
 import org.apache.fineract.cn.identity.internal.command.DeleteApplicationPermissionCommand;
 import org.apache.fineract.cn.identity.internal.command.SetApplicationPermissionUserEnabledCommand;
+import org.apache.fineract.cn.identity.internal.command.SetApplicationPermissionUsersEnabledCommand;
 import org.apache.fineract.cn.identity.internal.command.SetApplicationSignatureCommand;
 import org.apache.fineract.cn.identity.internal.mapper.ApplicationCallEndpointSetMapper;
 import org.apache.fineract.cn.identity.internal.mapper.PermissionMapper;
@@ -41,6 +43,7 @@ import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpoi
 import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpointSets;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionEntity;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionUsers;
+import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionUsersEntity;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissions;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatures;
@@ -48,6 +51,9 @@ import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
  * @author Myrle Krantz
  */
@@ -59,16 +65,19 @@ public class ApplicationCommandHandler {
   private final ApplicationPermissions applicationPermissions;
   private final ApplicationPermissionUsers applicationPermissionUsers;
   private final ApplicationCallEndpointSets applicationCallEndpointSets;
+  private final ApplicationPublicKeyCache applicationPublicKeyCache;
 
   @Autowired
   public ApplicationCommandHandler(final ApplicationSignatures applicationSignatures,
                                    final ApplicationPermissions applicationPermissions,
                                    final ApplicationPermissionUsers applicationPermissionUsers,
-                                   final ApplicationCallEndpointSets applicationCallEndpointSets) {
+                                   final ApplicationCallEndpointSets applicationCallEndpointSets,
+                                   final ApplicationPublicKeyCache applicationPublicKeyCache) {
     this.applicationSignatures = applicationSignatures;
     this.applicationPermissions = applicationPermissions;
     this.applicationPermissionUsers = applicationPermissionUsers;
     this.applicationCallEndpointSets = applicationCallEndpointSets;
+    this.applicationPublicKeyCache = applicationPublicKeyCache;
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
@@ -80,6 +89,7 @@ public class ApplicationCommandHandler {
     applicationSignatureEntity.setPublicKeyMod(command.getSignature().getPublicKeyMod());
     applicationSignatureEntity.setPublicKeyExp(command.getSignature().getPublicKeyExp());
     applicationSignatures.add(applicationSignatureEntity);
+    applicationPublicKeyCache.invalidate(command.getApplicationIdentifier(), command.getKeyTimestamp());
 
     return new ApplicationSignatureEvent(command.getApplicationIdentifier(), command.getKeyTimestamp());
   }
@@ -88,6 +98,7 @@ public class ApplicationCommandHandler {
   @EventEmitter(selectorName = EventConstants.OPERATION_HEADER, selectorValue = EventConstants.OPERATION_DELETE_APPLICATION)
   public String process(final DeleteApplicationCommand command) {
     applicationSignatures.delete(command.getApplicationIdentifier());
+    applicationPublicKeyCache.invalidateApplication(command.getApplicationIdentifier());
     return command.getApplicationIdentifier();
   }
 
@@ -115,6 +126,18 @@ public class ApplicationCommandHandler {
     return new ApplicationPermissionUserEvent(command.getApplicationIdentifier(), command.getPermittableGroupIdentifier(), command.getUserIdentifier());
   }
 
+  @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
+  @EventEmitter(selectorName = EventConstants.OPERATION_HEADER, selectorValue = EventConstants.OPERATION_PUT_APPLICATION_PERMISSION_USERS_ENABLED)
+  public ApplicationPermissionUsersEvent process(final SetApplicationPermissionUsersEnabledCommand command) {
+    final List<ApplicationPermissionUsersEntity> flags = command.getPermissionUsers().stream()
+            .map(x -> new ApplicationPermissionUsersEntity(command.getApplicationIdentifier(), x.getPermittableGroupIdentifier(), x.getUserIdentifier(), x.isEnabled()))
+            .collect(Collectors.toList());
+    applicationPermissionUsers.setEnabled(command.getApplicationIdentifier(), flags);
+    return new ApplicationPermissionUsersEvent(command.getApplicationIdentifier(), command.getPermissionUsers().stream()
+            .map(x -> new ApplicationPermissionUserEvent(command.getApplicationIdentifier(), x.getPermittableGroupIdentifier(), x.getUserIdentifier()))
+            .collect(Collectors.toList()));
+  }
+
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
   @EventEmitter(selectorName = EventConstants.OPERATION_HEADER, selectorValue = EventConstants.OPERATION_PUT_APPLICATION_CALLENDPOINTSET)
   public ApplicationCallEndpointSetEvent process(final ChangeApplicationCallEndpointSetCommand command) {
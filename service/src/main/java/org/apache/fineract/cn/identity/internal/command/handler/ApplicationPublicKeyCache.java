@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatures;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
+import org.apache.fineract.cn.lang.security.RsaPublicKeyBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decoded public keys of applications per tenant, application and key timestamp, used to verify refresh tokens
+ * issued by applications other than identity.  Signatures which do not exist are not cached.  Deletions are only
+ * invalidated on the instance which performed them, so entries expire after a short time to bound how long other
+ * instances keep accepting a deleted signature.
+ */
+@Component
+public class ApplicationPublicKeyCache implements PublicMetrics {
+  private final ApplicationSignatures applicationSignatures;
+  private final TenantScopedCache<Key, PublicKey> cache;
+
+  @Autowired
+  ApplicationPublicKeyCache(
+      final ApplicationSignatures applicationSignatures,
+      @Value("${identity.cache.applicationPublicKeys.maximumSize:1000}") final long maximumSize,
+      @Value("${identity.cache.applicationPublicKeys.expireAfterWriteSeconds:60}") final long expireAfterWriteSeconds) {
+    this.applicationSignatures = applicationSignatures;
+    this.cache = new TenantScopedCache<>(maximumSize, expireAfterWriteSeconds);
+  }
+
+  Optional<PublicKey> get(final String applicationIdentifier, final String keyTimestamp) {
+    return cache.find(new Key(applicationIdentifier, keyTimestamp), () ->
+        applicationSignatures.get(applicationIdentifier, keyTimestamp)
+            .map(signature -> new RsaPublicKeyBuilder()
+                .setPublicKeyMod(signature.getPublicKeyMod())
+                .setPublicKeyExp(signature.getPublicKeyExp())
+                .build()));
+  }
+
+  void invalidate(final String applicationIdentifier, final String keyTimestamp) {
+    cache.invalidate(new Key(applicationIdentifier, keyTimestamp));
+  }
+
+  void invalidateApplication(final String applicationIdentifier) {
+    cache.invalidateIf(key -> key.applicationIdentifier.equals(applicationIdentifier));
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.cache.applicationPublicKeys.hits", cache.getHitCount()),
+        new Metric<>("identity.cache.applicationPublicKeys.misses", cache.getMissCount()));
+  }
+
+  private static final class Key {
+    private final String applicationIdentifier;
+    private final String keyTimestamp;
+
+    private Key(final String applicationIdentifier, final String keyTimestamp) {
+      this.applicationIdentifier = applicationIdentifier;
+      this.keyTimestamp = keyTimestamp;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      final Key key = (Key) o;
+      return Objects.equals(applicationIdentifier, key.applicationIdentifier) &&
+          Objects.equals(keyTimestamp, key.keyTimestamp);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(applicationIdentifier, keyTimestamp);
+    }
+  }
+}
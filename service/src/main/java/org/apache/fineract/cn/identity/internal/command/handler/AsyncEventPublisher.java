@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.TextMessage;
+import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.apache.fineract.cn.lang.config.TenantHeaderFilter;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes events without blocking the caller on the message broker.  Events are put into a bounded queue, and a
+ * background sender sends them in batches, one JMS session per batch.  The tenant is captured when the event is
+ * published.  When the queue is full, events are either dropped and counted (DROP) or the caller waits for room
+ * (BLOCK), depending on identity.events.async.overflowPolicy.
+ */
+@Component
+public class AsyncEventPublisher implements PublicMetrics {
+  public enum OverflowPolicy { DROP, BLOCK }
+
+  private final JmsTemplate jmsTemplate;
+  private final Gson gson;
+  private final Logger logger;
+  private final OverflowPolicy overflowPolicy;
+  private final int batchSize;
+  private final BlockingQueue<PendingEvent> queue;
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private volatile boolean running;
+  private Thread sender;
+
+  @Autowired
+  public AsyncEventPublisher(
+      final JmsTemplate jmsTemplate,
+      @Qualifier(IdentityConstants.JSON_SERIALIZER_NAME) final Gson gson,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+      @Value("${identity.events.async.capacity:10000}") final int capacity,
+      @Value("${identity.events.async.batchSize:100}") final int batchSize,
+      @Value("${identity.events.async.overflowPolicy:DROP}") final OverflowPolicy overflowPolicy) {
+    this.jmsTemplate = jmsTemplate;
+    this.gson = gson;
+    this.logger = logger;
+    this.overflowPolicy = overflowPolicy;
+    this.batchSize = batchSize;
+    this.queue = new ArrayBlockingQueue<>(capacity);
+  }
+
+  @PostConstruct
+  public void start() {
+    running = true;
+    sender = new Thread(this::sendUntilStopped, "identity-event-publisher");
+    sender.setDaemon(true);
+    sender.start();
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    running = false;
+    sender.interrupt();
+    sender.join(TimeUnit.SECONDS.toMillis(5));
+
+    //Whatever is still queued is sent from the stopping thread.
+    final List<PendingEvent> remaining = new ArrayList<>();
+    queue.drainTo(remaining);
+    if (!remaining.isEmpty())
+      send(remaining);
+  }
+
+  /**
+   * Queues the payload to be sent as JSON with the given operation as selector, for the tenant currently in context.
+   */
+  public void publish(final String operation, final Object payload) {
+    final PendingEvent event = new PendingEvent(
+        TenantContextHolder.identifier().orElse(null), operation, gson.toJson(payload));
+
+    if (overflowPolicy == OverflowPolicy.BLOCK) {
+      try {
+        queue.put(event);
+      }
+      catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        dropped.increment();
+      }
+    }
+    else if (!queue.offer(event)) {
+      dropped.increment();
+      logger.debug("Event queue full; dropped '{}' event.", operation);
+    }
+  }
+
+  public int getQueueDepth() {
+    return queue.size();
+  }
+
+  public long getDroppedCount() {
+    return dropped.sum();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.events.queue.depth", getQueueDepth()),
+        new Metric<>("identity.events.sent", sent.sum()),
+        new Metric<>("identity.events.dropped", getDroppedCount()),
+        new Metric<>("identity.events.failed", failed.sum()));
+  }
+
+  private void sendUntilStopped() {
+    final List<PendingEvent> batch = new ArrayList<>(batchSize);
+    while (running) {
+      try {
+        batch.add(queue.take());
+      }
+      catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, batchSize - 1);
+      send(batch);
+      batch.clear();
+    }
+  }
+
+  private void send(final List<PendingEvent> batch) {
+    try {
+      jmsTemplate.execute((session, producer) -> {
+        for (final PendingEvent event : batch) {
+          final TextMessage message = session.createTextMessage(event.json);
+          if (event.tenant != null)
+            message.setStringProperty(TenantHeaderFilter.TENANT_HEADER, event.tenant);
+          message.setStringProperty(EventConstants.OPERATION_HEADER, event.operation);
+          producer.send(message);
+        }
+        return null;
+      });
+      sent.add(batch.size());
+    }
+    catch (final RuntimeException e) {
+      failed.add(batch.size());
+      logger.warn("Failed to send {} events.", batch.size(), e);
+    }
+  }
+
+  private static final class PendingEvent {
+    private final String tenant;
+    private final String operation;
+    private final String json;
+
+    private PendingEvent(final String tenant, final String operation, final String json) {
+      this.tenant = tenant;
+      this.operation = operation;
+      this.json = json;
+    }
+  }
+}
@@ -18,11 +18,6 @@
  */
 package org.apache.fineract.cn.identity.internal.command.handler;
 
-import com.google.common.collect.Sets;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
-import com.google.gson.Gson;
 import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
 import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
 import org.apache.fineract.cn.anubis.api.v1.domain.TokenContent;
@@ -43,17 +38,19 @@ import org.apache.fineract.cn.identity.internal.command.AuthenticationCommandRes
 import org.apache.fineract.cn.identity.internal.command.FirebaseAuthenticationCommand;
 import org.apache.fineract.cn.identity.internal.command.PasswordAuthenticationCommand;
 import org.apache.fineract.cn.identity.internal.command.RefreshTokenAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerificationException;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.VerifiedFirebaseToken;
 import org.apache.fineract.cn.identity.internal.repository.AllowedOperationType;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpointSetEntity;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpointSets;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionUsers;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissions;
-import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatureEntity;
-import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatures;
 import org.apache.fineract.cn.identity.internal.repository.PermissionType;
 import org.apache.fineract.cn.identity.internal.repository.PermittableGroupEntity;
 import org.apache.fineract.cn.identity.internal.repository.PermittableGroups;
 import org.apache.fineract.cn.identity.internal.repository.PermittableType;
+import org.apache.fineract.cn.identity.internal.repository.PrivateKeyCache;
 import org.apache.fineract.cn.identity.internal.repository.PrivateSignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.PrivateTenantInfoEntity;
 import org.apache.fineract.cn.identity.internal.repository.RoleEntity;
@@ -61,21 +58,17 @@ import org.apache.fineract.cn.identity.internal.repository.Roles;
 import org.apache.fineract.cn.identity.internal.repository.Signatures;
 import org.apache.fineract.cn.identity.internal.repository.Tenants;
 import org.apache.fineract.cn.identity.internal.repository.UserEntity;
+import org.apache.fineract.cn.identity.internal.repository.UserIdentifierFilter;
 import org.apache.fineract.cn.identity.internal.repository.Users;
-import org.apache.fineract.cn.identity.internal.service.RoleMapper;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
 import org.apache.fineract.cn.lang.ApplicationName;
 import org.apache.fineract.cn.lang.DateConverter;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.apache.fineract.cn.lang.TenantContextHolder;
-import org.apache.fineract.cn.lang.config.TenantHeaderFilter;
-import org.apache.fineract.cn.lang.security.RsaPrivateKeyBuilder;
-import org.apache.fineract.cn.lang.security.RsaPublicKeyBuilder;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.util.Base64Utils;
@@ -88,7 +81,8 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -101,6 +95,7 @@ import java.util.stream.Stream;
 public class AuthenticationCommandHandler {
 
   private final Users users;
+  private final UserIdentifierFilter userIdentifierFilter;
   private final Roles roles;
   private final PermittableGroups permittableGroups;
   private final Signatures signatures;
@@ -109,12 +104,16 @@ public class AuthenticationCommandHandler {
   private final TenantAccessTokenSerializer tenantAccessTokenSerializer;
   private final TenantRefreshTokenSerializer tenantRefreshTokenSerializer;
   private final TenantRsaKeyProvider tenantRsaKeyProvider;
-  private final ApplicationSignatures applicationSignatures;
   private final ApplicationPermissions applicationPermissions;
   private final ApplicationPermissionUsers applicationPermissionUsers;
   private final ApplicationCallEndpointSets applicationCallEndpointSets;
-  private final JmsTemplate jmsTemplate;
-  private final Gson gson;
+  private final RoleTokenPermissionCache roleTokenPermissionCache;
+  private final PrivateKeyCache privateKeyCache;
+  private final ApplicationPublicKeyCache applicationPublicKeyCache;
+  private final PasswordHashExecutor passwordHashExecutor;
+  private final UserEntityCreator userEntityCreator;
+  private final FirebaseTokenVerifier firebaseTokenVerifier;
+  private final AsyncEventPublisher eventPublisher;
   private final Logger logger;
   private final ApplicationName applicationName;
 
@@ -128,6 +127,7 @@ public class AuthenticationCommandHandler {
 
   @Autowired
   public AuthenticationCommandHandler(final Users users,
+      final UserIdentifierFilter userIdentifierFilter,
       final Roles roles,
       final PermittableGroups permittableGroups,
       final Signatures signatures,
@@ -136,15 +136,20 @@ public class AuthenticationCommandHandler {
       @SuppressWarnings("SpringJavaAutowiringInspection") final TenantAccessTokenSerializer tenantAccessTokenSerializer,
       @SuppressWarnings("SpringJavaAutowiringInspection") final TenantRefreshTokenSerializer tenantRefreshTokenSerializer,
       @SuppressWarnings("SpringJavaAutowiringInspection") final TenantRsaKeyProvider tenantRsaKeyProvider,
-      final ApplicationSignatures applicationSignatures,
       final ApplicationPermissions applicationPermissions,
       final ApplicationPermissionUsers applicationPermissionUsers,
       final ApplicationCallEndpointSets applicationCallEndpointSets,
-      final JmsTemplate jmsTemplate,
+      final RoleTokenPermissionCache roleTokenPermissionCache,
+      final PrivateKeyCache privateKeyCache,
+      final ApplicationPublicKeyCache applicationPublicKeyCache,
+      final PasswordHashExecutor passwordHashExecutor,
+      final UserEntityCreator userEntityCreator,
+      final FirebaseTokenVerifier firebaseTokenVerifier,
+      final AsyncEventPublisher eventPublisher,
       final ApplicationName applicationName,
-      @Qualifier(IdentityConstants.JSON_SERIALIZER_NAME) final Gson gson,
       @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
     this.users = users;
+    this.userIdentifierFilter = userIdentifierFilter;
     this.roles = roles;
     this.permittableGroups = permittableGroups;
     this.signatures = signatures;
@@ -153,12 +158,16 @@ public class AuthenticationCommandHandler {
     this.tenantAccessTokenSerializer = tenantAccessTokenSerializer;
     this.tenantRefreshTokenSerializer = tenantRefreshTokenSerializer;
     this.tenantRsaKeyProvider = tenantRsaKeyProvider;
-    this.applicationSignatures = applicationSignatures;
     this.applicationPermissions = applicationPermissions;
     this.applicationPermissionUsers = applicationPermissionUsers;
     this.applicationCallEndpointSets = applicationCallEndpointSets;
-    this.jmsTemplate = jmsTemplate;
-    this.gson = gson;
+    this.roleTokenPermissionCache = roleTokenPermissionCache;
+    this.privateKeyCache = privateKeyCache;
+    this.applicationPublicKeyCache = applicationPublicKeyCache;
+    this.passwordHashExecutor = passwordHashExecutor;
+    this.userEntityCreator = userEntityCreator;
+    this.firebaseTokenVerifier = firebaseTokenVerifier;
+    this.eventPublisher = eventPublisher;
     this.logger = logger;
     this.applicationName = applicationName;
   }
@@ -166,19 +175,17 @@ public class AuthenticationCommandHandler {
   @CommandHandler(logStart = CommandLogLevel.DEBUG, logFinish = CommandLogLevel.DEBUG)
   public AuthenticationCommandResponse process(final FirebaseAuthenticationCommand command)
       throws AmitAuthenticationException {
-    FirebaseToken token;
+    final VerifiedFirebaseToken token;
     try {
-      token = FirebaseAuth.getInstance().verifyIdToken(command.getFiresbaseToken());
-    } catch (FirebaseAuthException e) {
+      token = firebaseTokenVerifier.verify(command.getFiresbaseToken());
+    } catch (final FirebaseTokenVerificationException e) {
       logger.error("Incorrect firebase token {}", command.getFiresbaseToken(),  e);
       throw ServiceException.badRequest("Firebase token is incorrect.", e);
-    } catch (final IllegalArgumentException e) {
-      logger.error("Error getting firebase token", e);
-      throw ServiceException.badRequest("There was an error getting information from firebase token {}", command.getFiresbaseToken(), e);
     }
+    final CompletableFuture<Optional<UserEntity>> pendingUser = readUser(token.getEmail());
     final PrivateTenantInfoEntity privateTenantInfo = checkedGetPrivateTenantInfo();
     final PrivateSignatureEntity privateSignature = checkedGetPrivateSignature();
-    final UserEntity user = getUser(token.getEmail());
+    final UserEntity user = getUser(pendingUser, token.getEmail());
     final TokenSerializationResult refreshToken = getRefreshToken(user, privateSignature);
     final AuthenticationCommandResponse ret = getAuthenticationResponse(
         applicationName.toString(),
@@ -205,22 +212,29 @@ public class AuthenticationCommandHandler {
       throw ServiceException.badRequest("Password was not base64 encoded.");
     }
 
+    //The user is read while the tenant info and signing key are looked up.
+    final CompletableFuture<Optional<UserEntity>> pendingUser = readUser(command.getUseridentifier());
     final PrivateTenantInfoEntity privateTenantInfo = checkedGetPrivateTenantInfo();
     final PrivateSignatureEntity privateSignature = checkedGetPrivateSignature();
 
     byte[] fixedSalt = privateTenantInfo.getFixedSalt().array();
-    final UserEntity user = getUser(command.getUseridentifier());
+    final Optional<UserEntity> foundUser = awaitUser(pendingUser);
+    if (!foundUser.isPresent())
+      userEntityCreator.verifyForUnknownUser(base64decodedPassword, fixedSalt);
+    final UserEntity user = checkedUser(foundUser, command.getUseridentifier());
 
-    if (!this.hashGenerator.isEqual(
+    if (!passwordHashExecutor.call(() -> this.hashGenerator.isEqual(
         user.getPassword().array(),
         base64decodedPassword,
         fixedSalt,
         user.getSalt().array(),
         user.getIterationCount(),
-        256)) {
+        256))) {
       throw AmitAuthenticationException.userPasswordCombinationNotFound();
     }
 
+    rehashIfOutdated(user, command.getPassword(), fixedSalt);
+
     final TokenSerializationResult refreshToken = getRefreshToken(user, privateSignature);
 
     final AuthenticationCommandResponse ret = getAuthenticationResponse(
@@ -248,6 +262,20 @@ public class AuthenticationCommandHandler {
     return privateSignature.get();
   }
 
+  private void rehashIfOutdated(final UserEntity user, final String password, final byte[] fixedSalt) {
+    if (!userEntityCreator.needsRehash(user))
+      return;
+
+    try {
+      if (!users.replaceHashIfUnchanged(user, userEntityCreator.rehash(user, password, fixedSalt)))
+        logger.info("Did not rehash password of user '{}', since it was changed during login.", user.getIdentifier());
+    }
+    catch (final RuntimeException e) {
+      //The login itself succeeded; the hash will be upgraded on a later login.
+      logger.warn("Failed to rehash password of user '{}'.", user.getIdentifier(), e);
+    }
+  }
+
   private PrivateTenantInfoEntity checkedGetPrivateTenantInfo() {
     final Optional<PrivateTenantInfoEntity> privateTenantInfo = tenants.getPrivateTenantInfo();
     if (!privateTenantInfo.isPresent()) {
@@ -267,14 +295,8 @@ public class AuthenticationCommandHandler {
         return tenantRsaKeyProvider.getPublicKey(timestamp);
       }
 
-      final ApplicationSignatureEntity signature = applicationSignatures
-          .get(tokenApplicationName, timestamp)
+      return applicationPublicKeyCache.get(tokenApplicationName, timestamp)
           .orElseThrow(() -> new InvalidKeyTimestampException(timestamp));
-
-      return new RsaPublicKeyBuilder()
-          .setPublicKeyMod(signature.getPublicKeyMod())
-          .setPublicKeyExp(signature.getPublicKeyExp())
-          .build();
     }
   }
 
@@ -285,10 +307,12 @@ public class AuthenticationCommandHandler {
         tenantRefreshTokenSerializer
             .deserialize(new TenantIdentityRsaKeyProvider(), command.getRefreshToken());
 
+    final CompletableFuture<Optional<UserEntity>> pendingUser
+        = readUser(deserializedRefreshToken.getUserIdentifier());
     final PrivateTenantInfoEntity privateTenantInfo = checkedGetPrivateTenantInfo();
     final PrivateSignatureEntity privateSignature = checkedGetPrivateSignature();
 
-    final UserEntity user = getUser(deserializedRefreshToken.getUserIdentifier());
+    final UserEntity user = getUser(pendingUser, deserializedRefreshToken.getUserIdentifier());
     final String sourceApplicationName = deserializedRefreshToken.getSourceApplication();
 
     return getAuthenticationResponse(
@@ -317,36 +341,23 @@ public class AuthenticationCommandHandler {
       throw AmitAuthenticationException.passwordExpired();
     }
 
-    final Set<TokenPermission> tokenPermissions;
+    final TokenPermissionAccumulator tokenPermissions = new TokenPermissionAccumulator();
 
     if (sourceApplicationName
         .equals(applicationName.toString())) { //ie, this is a token for the identity manager.
       if (pastExpiration(passwordExpiration)) {
-        tokenPermissions = identityEndpointsAllowedEvenWithExpiredPassword();
+        addIdentityEndpointsAllowedEvenWithExpiredPassword(tokenPermissions);
         logger.info("Password expired {}",
             passwordExpiration.map(LocalDateTime::toString).orElse("empty"));
       } else {
-        tokenPermissions = getUserTokenPermissions(user);
+        addUserTokenPermissions(user, tokenPermissions);
       }
     } else {
-      tokenPermissions = getApplicationTokenPermissions(user, sourceApplicationName,
-          callEndpointSet);
+      addApplicationTokenPermissions(user, sourceApplicationName,
+          callEndpointSet, tokenPermissions);
     }
 
-    final HashSet<TokenPermission> minifiedTokenPermissions = new HashSet<>(
-        tokenPermissions
-            .stream()
-            .collect(Collectors.toMap(TokenPermission::getPath,
-                tokenPermission -> tokenPermission,
-                (currentTokenPermission, newTokenPermission) -> {
-                  newTokenPermission.getAllowedOperations()
-                      .forEach(allowedOperation -> currentTokenPermission.getAllowedOperations()
-                          .add(allowedOperation));
-                  return currentTokenPermission;
-                })
-            )
-            .values()
-    );
+    final Set<TokenPermission> minifiedTokenPermissions = tokenPermissions.toTokenPermissions();
 
     logger.info(
         "Access token for tenant '{}', user '{}', application '{}', and callEndpointSet '{}' being returned containing the permissions '{}'.",
@@ -380,8 +391,35 @@ public class AuthenticationCommandHandler {
     }
   }
 
-  private UserEntity getUser(final String identifier) throws AmitAuthenticationException {
-    final Optional<UserEntity> user = users.get(identifier);
+  /**
+   * Starts reading the user, unless the user certainly does not exist.
+   */
+  private CompletableFuture<Optional<UserEntity>> readUser(final String identifier) {
+    if (userIdentifierFilter.mightExist(identifier))
+      return users.getAsync(identifier);
+
+    return CompletableFuture.completedFuture(Optional.empty());
+  }
+
+  private UserEntity getUser(
+      final CompletableFuture<Optional<UserEntity>> pendingUser,
+      final String identifier) throws AmitAuthenticationException {
+    return checkedUser(awaitUser(pendingUser), identifier);
+  }
+
+  private Optional<UserEntity> awaitUser(final CompletableFuture<Optional<UserEntity>> pendingUser) {
+    try {
+      return pendingUser.join();
+    }
+    catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw e;
+    }
+  }
+
+  private UserEntity checkedUser(final Optional<UserEntity> user, final String identifier)
+      throws AmitAuthenticationException {
     if (!user.isPresent()) {
       this.logger.info("Attempt to get a user who doesn't exist: " + identifier);
       throw AmitAuthenticationException.userPasswordCombinationNotFound();
@@ -391,21 +429,7 @@ public class AuthenticationCommandHandler {
   }
 
   private void fireAuthenticationEvent(final String userIdentifier) {
-    this.jmsTemplate.convertAndSend(
-        this.gson.toJson(userIdentifier),
-        message -> {
-          if (TenantContextHolder.identifier().isPresent()) {
-            //noinspection OptionalGetWithoutIsPresent
-            message.setStringProperty(
-                TenantHeaderFilter.TENANT_HEADER,
-                TenantContextHolder.identifier().get());
-          }
-          message.setStringProperty(EventConstants.OPERATION_HEADER,
-              EventConstants.OPERATION_AUTHENTICATE
-          );
-          return message;
-        }
-    );
+    this.eventPublisher.publish(EventConstants.OPERATION_AUTHENTICATE, userIdentifier);
   }
 
   private TokenSerializationResult getAuthenticationResponse(
@@ -415,10 +439,7 @@ public class AuthenticationCommandHandler {
       final PrivateSignatureEntity privateSignatureEntity,
       final String sourceApplication) {
 
-    final PrivateKey privateKey = new RsaPrivateKeyBuilder()
-        .setPrivateKeyExp(privateSignatureEntity.getPrivateKeyExp())
-        .setPrivateKeyMod(privateSignatureEntity.getPrivateKeyMod())
-        .build();
+    final PrivateKey privateKey = privateKeyCache.get(privateSignatureEntity);
 
     final TenantAccessTokenSerializer.Specification x =
         new TenantAccessTokenSerializer.Specification()
@@ -433,24 +454,29 @@ public class AuthenticationCommandHandler {
     return tenantAccessTokenSerializer.build(x);
   }
 
-  private Set<TokenPermission> getUserTokenPermissions(
-      final UserEntity user) {
+  private void addUserTokenPermissions(
+      final UserEntity user,
+      final TokenPermissionAccumulator tokenPermissions) {
+
+    tokenPermissions.addAll(
+        roleTokenPermissionCache.get(user.getRole(), () -> compileRoleTokenPermissions(user.getRole())));
 
-    final Optional<RoleEntity> userRole = roles.get(user.getRole());
-    final Set<TokenPermission> tokenPermissions = userRole
-        .map(r -> r.getPermissions().stream().flatMap(this::mapPermissions)
-            .collect(Collectors.toSet()))
-        .orElse(new HashSet<>());
+    addIdentityEndpointsForEveryUser(tokenPermissions);
+  }
 
-    tokenPermissions.addAll(identityEndpointsForEveryUser());
+  private Set<TokenPermission> compileRoleTokenPermissions(final String roleIdentifier) {
+    final TokenPermissionAccumulator tokenPermissions = new TokenPermissionAccumulator();
+    roles.get(roleIdentifier).ifPresent(role ->
+        role.getPermissions().forEach(permission -> addPermissions(permission, tokenPermissions)));
 
-    return tokenPermissions;
+    return Collections.unmodifiableSet(tokenPermissions.toTokenPermissions());
   }
 
-  private Set<TokenPermission> getApplicationTokenPermissions(
+  private void addApplicationTokenPermissions(
       final UserEntity user,
       final String sourceApplicationName,
-      @SuppressWarnings("OptionalUsedAsFieldOrParameterType") final Optional<String> callEndpointSet) {
+      @SuppressWarnings("OptionalUsedAsFieldOrParameterType") final Optional<String> callEndpointSet,
+      final TokenPermissionAccumulator tokenPermissions) {
 
     //If the call endpoint set was given, but does not correspond to a stored call endpoint set, throw an exception.
     //If it wasn't given then return all of the permissions for the application.
@@ -468,132 +494,122 @@ public class AuthenticationCommandHandler {
     final RoleEntity userRole = roles.get(user.getRole())
         .orElseThrow(AmitAuthenticationException::userPasswordCombinationNotFound);
 
-    return applicationCallEndpointSet.map(x -> this
-        .getApplicationCallEndpointSetTokenPermissions(user.getIdentifier(), userRole, x,
+    final Set<PermissionType> permissions = applicationCallEndpointSet.map(x -> this
+        .getApplicationCallEndpointSetPermissions(user.getIdentifier(), userRole, x,
             sourceApplicationName))
-        .orElseGet(() -> this.getApplicationUserTokenPermissions(user.getIdentifier(), userRole,
+        .orElseGet(() -> this.getApplicationUserPermissions(user.getIdentifier(), userRole,
             sourceApplicationName));
+
+    permissions.forEach(permission -> addPermissions(permission, tokenPermissions));
   }
 
-  private Set<TokenPermission> getApplicationCallEndpointSetTokenPermissions(
+  private Set<PermissionType> getApplicationCallEndpointSetPermissions(
       final String userIdentifier,
       final RoleEntity userRole,
       final ApplicationCallEndpointSetEntity applicationCallEndpointSet,
       final String sourceApplicationName) {
     final List<PermissionType> permissionsForUser = userRole.getPermissions();
+    final Map<String, PermissionType> applicationPermissionsByGroup = applicationPermissions
+        .getPermissionsByGroupForApplication(sourceApplicationName);
     final Set<PermissionType> permissionsRequestedByApplication = applicationCallEndpointSet
         .getCallEndpointGroupIdentifiers().stream()
-        .map(x -> applicationPermissions.getPermissionForApplication(sourceApplicationName, x))
-        .filter(Optional::isPresent)
-        .map(Optional::get)
+        .map(applicationPermissionsByGroup::get)
+        .filter(Objects::nonNull)
         .collect(Collectors.toSet());
 
     final Stream<PermissionType> applicationRequestedPermissionsTheUserHas
         = intersectPermissionList(permissionsForUser, permissionsRequestedByApplication.stream());
 
-    final Set<PermissionType> permissionsPossible = applicationRequestedPermissionsTheUserHas
-        .filter(x ->
-            applicationPermissionUsers
-                .enabled(sourceApplicationName, x.getPermittableGroupIdentifier(), userIdentifier))
-        .collect(Collectors.toSet());
+    final Set<PermissionType> permissionsPossible = filterEnabled(
+        applicationRequestedPermissionsTheUserHas, sourceApplicationName, userIdentifier);
 
     if (!permissionsPossible.containsAll(permissionsRequestedByApplication)) {
       throw AmitAuthenticationException
           .applicationMissingPermissions(userIdentifier, sourceApplicationName);
     }
 
-    return permissionsPossible.stream()
-        .flatMap(this::mapPermissions)
-        .collect(Collectors.toSet());
+    return permissionsPossible;
   }
 
-  private Set<TokenPermission> getApplicationUserTokenPermissions(
+  private Set<PermissionType> getApplicationUserPermissions(
       final String userIdentifier,
       final RoleEntity userRole,
       final String sourceApplicationName) {
     final List<PermissionType> permissionsForUser = userRole.getPermissions();
-    final List<PermissionType> permissionsRequestedByApplication = applicationPermissions
-        .getAllPermissionsForApplication(sourceApplicationName);
+    final Collection<PermissionType> permissionsRequestedByApplication = applicationPermissions
+        .getPermissionsByGroupForApplication(sourceApplicationName).values();
 
     final Stream<PermissionType> applicationRequestedPermissionsTheUserHas
         = intersectPermissionList(permissionsForUser, permissionsRequestedByApplication.stream());
 
-    return applicationRequestedPermissionsTheUserHas
-        .filter(x ->
-            applicationPermissionUsers
-                .enabled(sourceApplicationName, x.getPermittableGroupIdentifier(), userIdentifier))
-        .flatMap(this::mapPermissions)
+    return filterEnabled(applicationRequestedPermissionsTheUserHas, sourceApplicationName, userIdentifier);
+  }
+
+  private Set<PermissionType> filterEnabled(
+      final Stream<PermissionType> permissions,
+      final String sourceApplicationName,
+      final String userIdentifier) {
+    final List<PermissionType> permissionList = permissions.collect(Collectors.toList());
+    final Set<String> enabledGroups = applicationPermissionUsers.enabledPermittableGroups(
+        sourceApplicationName,
+        userIdentifier,
+        permissionList.stream().map(PermissionType::getPermittableGroupIdentifier).collect(Collectors.toList()));
+
+    return permissionList.stream()
+        .filter(x -> enabledGroups.contains(x.getPermittableGroupIdentifier()))
         .collect(Collectors.toSet());
   }
 
   private Stream<PermissionType> intersectPermissionList(
       final List<PermissionType> permissionsForUser,
       final Stream<PermissionType> permissionsRequestedByApplication) {
-    final Map<String, Set<AllowedOperationType>> keyedUserPermissions = transformToSearchablePermissions(
+    final Map<String, Integer> keyedUserPermissions = transformToSearchablePermissions(
         permissionsForUser);
 
     return permissionsRequestedByApplication
         .map(x -> new PermissionType(
             x.getPermittableGroupIdentifier(),
-            intersectSets(keyedUserPermissions.get(x.getPermittableGroupIdentifier()),
-                x.getAllowedOperations())))
+            AllowedOperationType.fromMask(intersectMasks(keyedUserPermissions.get(x.getPermittableGroupIdentifier()),
+                AllowedOperationType.maskOf(x.getAllowedOperations())))))
         .filter(x -> !x.getAllowedOperations().isEmpty());
   }
 
-  static <T> Set<T> intersectSets(
-      final @Nullable Set<T> allowedOperations1,
-      final @Nullable Set<T> allowedOperations2) {
+  static int intersectMasks(
+      final @Nullable Integer allowedOperations1,
+      final @Nullable Integer allowedOperations2) {
     if (allowedOperations1 == null || allowedOperations2 == null) {
-      return Collections.emptySet();
+      return 0;
     }
 
-    final Set<T> ret = new HashSet<>(allowedOperations1);
-    ret.retainAll(allowedOperations2);
-    return ret;
+    return allowedOperations1 & allowedOperations2;
   }
 
-  static Map<String, Set<AllowedOperationType>> transformToSearchablePermissions(
+  static Map<String, Integer> transformToSearchablePermissions(
       final List<PermissionType> permissionsForUser) {
-    final Collector<Set<AllowedOperationType>, Set<AllowedOperationType>, Set<AllowedOperationType>> setToSetCollector
-        = Collector.of(
-        HashSet::new,
-        Set::addAll,
-        (x, y) -> {
-          final Set<AllowedOperationType> ret = new HashSet<>();
-          ret.addAll(x);
-          ret.addAll(y);
-          return ret;
-        });
-
-    return permissionsForUser.stream().collect(
-        Collectors.groupingBy(PermissionType::getPermittableGroupIdentifier,
-            Collectors.mapping(PermissionType::getAllowedOperations, setToSetCollector)));
+    final Map<String, Integer> ret = new HashMap<>();
+    permissionsForUser.forEach(x -> ret.merge(x.getPermittableGroupIdentifier(),
+        AllowedOperationType.maskOf(x.getAllowedOperations()), (y, z) -> y | z));
+    return ret;
   }
 
-  private Set<TokenPermission> identityEndpointsForEveryUser() {
-    final Set<TokenPermission> ret = identityEndpointsAllowedEvenWithExpiredPassword();
+  private void addIdentityEndpointsForEveryUser(final TokenPermissionAccumulator tokenPermissions) {
+    addIdentityEndpointsAllowedEvenWithExpiredPassword(tokenPermissions);
 
-    ret.add(new TokenPermission(
+    tokenPermissions.add(
         applicationName + "/applications/*/permissions/*/users/{useridentifier}/enabled",
-        Sets.newHashSet(AllowedOperation.READ, AllowedOperation.CHANGE, AllowedOperation.DELETE)));
-    ret.add(new TokenPermission(
+        AllowedOperation.READ, AllowedOperation.CHANGE, AllowedOperation.DELETE);
+    tokenPermissions.add(
         applicationName + "/users/{useridentifier}/permissions",
-        Sets.newHashSet(AllowedOperation.READ)));
-
-    return ret;
+        AllowedOperation.READ);
   }
 
-  private Set<TokenPermission> identityEndpointsAllowedEvenWithExpiredPassword() {
-    final Set<TokenPermission> ret = new HashSet<>();
-
-    ret.add(new TokenPermission(
+  private void addIdentityEndpointsAllowedEvenWithExpiredPassword(final TokenPermissionAccumulator tokenPermissions) {
+    tokenPermissions.add(
         applicationName + "/users/{useridentifier}/password",
-        Sets.newHashSet(AllowedOperation.READ, AllowedOperation.CHANGE, AllowedOperation.DELETE)));
-    ret.add(new TokenPermission(
+        AllowedOperation.READ, AllowedOperation.CHANGE, AllowedOperation.DELETE);
+    tokenPermissions.add(
         applicationName + "/token/_current",
-        Sets.newHashSet(AllowedOperation.DELETE)));
-
-    return ret;
+        AllowedOperation.DELETE);
   }
 
   static boolean pastExpiration(
@@ -608,33 +624,25 @@ public class AuthenticationCommandHandler {
         .map(x -> (LocalDateTime.now().compareTo(x.plusDays(gracePeriod)) >= 0)).orElse(false);
   }
 
-  private Stream<TokenPermission> mapPermissions(final PermissionType permission) {
-    return permittableGroups.get(permission.getPermittableGroupIdentifier())
-        .map(PermittableGroupEntity::getPermittables)
-        .map(Collection::stream)
-        .orElse(Stream.empty())
-        .filter(permittable -> isAllowed(permittable, permission))
-        .map(this::getTokenPermission);
-  }
-
-  private boolean isAllowed(final PermittableType permittable, final PermissionType permission) {
-    return permission.getAllowedOperations()
-        .contains(AllowedOperationType.fromHttpMethod(permittable.getMethod()));
-  }
+  private void addPermissions(final PermissionType permission, final TokenPermissionAccumulator tokenPermissions) {
+    final int allowedMask = AllowedOperationType.maskOf(permission.getAllowedOperations());
+    if (allowedMask == 0)
+      return;
 
-  private TokenPermission getTokenPermission(final PermittableType permittable) {
-    final HashSet<AllowedOperation> allowedOperations = new HashSet<>();
-    allowedOperations.add(RoleMapper
-        .mapAllowedOperation(AllowedOperationType.fromHttpMethod(permittable.getMethod())));
-    return new TokenPermission(permittable.getPath(), allowedOperations);
+    permittableGroups.get(permission.getPermittableGroupIdentifier())
+        .map(PermittableGroupEntity::getPermittables)
+        .ifPresent(permittables -> {
+          for (final PermittableType permittable : permittables) {
+            final AllowedOperationType operation = AllowedOperationType.fromHttpMethod(permittable.getMethod());
+            if (operation != null)
+              tokenPermissions.add(permittable.getPath(), allowedMask & operation.mask());
+          }
+        });
   }
 
   private TokenSerializationResult getRefreshToken(final UserEntity user,
       final PrivateSignatureEntity privateSignatureEntity) {
-    final PrivateKey privateKey = new RsaPrivateKeyBuilder()
-        .setPrivateKeyExp(privateSignatureEntity.getPrivateKeyExp())
-        .setPrivateKeyMod(privateSignatureEntity.getPrivateKeyMod())
-        .build();
+    final PrivateKey privateKey = privateKeyCache.get(privateSignatureEntity);
 
     final TenantRefreshTokenSerializer.Specification x =
         new TenantRefreshTokenSerializer.Specification()
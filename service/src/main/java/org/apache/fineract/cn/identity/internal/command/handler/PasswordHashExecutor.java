@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.lang.ServiceError;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the available processors, so that a burst of logins cannot
+ * starve the threads processing other commands.  The queue in front of the pool is bounded; when it is full, hashing
+ * is refused immediately with a 503 rather than queueing without limit.
+ */
+@Component
+public class PasswordHashExecutor implements PublicMetrics {
+  private final ThreadPoolExecutor executor;
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder hashNanos = new LongAdder();
+
+  @Autowired
+  PasswordHashExecutor(
+      @Value("${identity.passwordHash.threads:0}") final int threads,
+      @Value("${identity.passwordHash.queueCapacity:256}") final int queueCapacity) {
+    final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    final AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          final Thread thread = new Thread(runnable, "identity-password-hash-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Runs the hashing on the pool and waits for its result.
+   */
+  public <T> T call(final Supplier<T> hashing) {
+    try {
+      return submit(hashing).get();
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw ServiceException.internalError("Interrupted while waiting for password hashing.");
+    }
+    catch (final ExecutionException e) {
+      throw unwrap(e.getCause());
+    }
+  }
+
+  public <T> CompletableFuture<T> submit(final Supplier<T> hashing) {
+    final long queuedAt = System.nanoTime();
+    try {
+      return CompletableFuture.supplyAsync(() -> {
+        final long startedAt = System.nanoTime();
+        waitNanos.add(startedAt - queuedAt);
+        try {
+          return hashing.get();
+        }
+        finally {
+          hashNanos.add(System.nanoTime() - startedAt);
+          completed.increment();
+        }
+      }, executor);
+    }
+    catch (final RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceException(ServiceError.create(503)
+          .message("Too many concurrent password operations; try again later.")
+          .build());
+    }
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    final long count = completed.sum();
+    return Arrays.asList(
+        new Metric<>("identity.passwordHash.queue.depth", getQueueDepth()),
+        new Metric<>("identity.passwordHash.active", executor.getActiveCount()),
+        new Metric<>("identity.passwordHash.completed", count),
+        new Metric<>("identity.passwordHash.rejected", rejected.sum()),
+        new Metric<>("identity.passwordHash.wait.averageMillis", averageMillis(waitNanos.sum(), count)),
+        new Metric<>("identity.passwordHash.hash.averageMillis", averageMillis(hashNanos.sum(), count)));
+  }
+
+  private static double averageMillis(final long totalNanos, final long count) {
+    return count == 0 ? 0.0 : (double) totalNanos / count / TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+  private static RuntimeException unwrap(final Throwable cause) {
+    final Throwable actual = (cause instanceof CompletionException && cause.getCause() != null)
+        ? cause.getCause() : cause;
+    if (actual instanceof RuntimeException)
+      return (RuntimeException) actual;
+    if (actual instanceof Error)
+      throw (Error) actual;
+    return new IllegalStateException(actual);
+  }
+}
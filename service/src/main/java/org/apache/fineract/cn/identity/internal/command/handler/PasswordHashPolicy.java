@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.apache.fineract.cn.crypto.HashGenerator;
+import org.apache.fineract.cn.crypto.SaltGenerator;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.Base64Utils;
+
+/**
+ * Decides how many PBKDF2 iterations new password hashes use.  If a target time is configured, the cost of hashing
+ * is measured once at startup on this hardware, and the iteration count is chosen so that a single hash takes
+ * roughly that long.  The count never falls below IdentityConstants.ITERATION_COUNT.
+ */
+@Component
+public class PasswordHashPolicy {
+  private static final int CALIBRATION_ROUNDS = 5;
+  private static final int ITERATION_GRANULARITY = 1024;
+
+  private final HashGenerator hashGenerator;
+  private final SaltGenerator saltGenerator;
+  private final Logger logger;
+  private final long targetMillis;
+  private final int maximumIterationCount;
+  private volatile int iterationCount = IdentityConstants.ITERATION_COUNT;
+
+  @Autowired
+  PasswordHashPolicy(
+      final HashGenerator hashGenerator,
+      final SaltGenerator saltGenerator,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+      @Value("${identity.passwordHash.targetMillis:0}") final long targetMillis,
+      @Value("${identity.passwordHash.maximumIterationCount:1000000}") final int maximumIterationCount) {
+    this.hashGenerator = hashGenerator;
+    this.saltGenerator = saltGenerator;
+    this.logger = logger;
+    this.targetMillis = targetMillis;
+    this.maximumIterationCount = maximumIterationCount;
+  }
+
+  @PostConstruct
+  public void calibrate() {
+    if (targetMillis <= 0) {
+      logger.info("Password hashing uses {} iterations; no calibration target configured.", iterationCount);
+      return;
+    }
+
+    final String samplePassword = Base64Utils.encodeToString(saltGenerator.createRandomSalt());
+    final byte[] sampleSalt = saltGenerator.createRandomSalt();
+
+    //The first round warms up the JIT and is not measured.
+    hash(samplePassword, sampleSalt);
+    long fastestNanos = Long.MAX_VALUE;
+    for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+      final long start = System.nanoTime();
+      hash(samplePassword, sampleSalt);
+      fastestNanos = Math.min(fastestNanos, System.nanoTime() - start);
+    }
+
+    iterationCount = iterationsFor(targetMillis, fastestNanos, maximumIterationCount);
+    logger.info("Password hashing calibrated to {} iterations for a target of {}ms ({} iterations took {}µs).",
+        iterationCount, targetMillis, IdentityConstants.ITERATION_COUNT, TimeUnit.NANOSECONDS.toMicros(fastestNanos));
+  }
+
+  public int getIterationCount() {
+    return iterationCount;
+  }
+
+  static int iterationsFor(final long targetMillis, final long nanosPerBaseHash, final int maximumIterationCount) {
+    final double scale = (double) TimeUnit.MILLISECONDS.toNanos(targetMillis) / Math.max(1L, nanosPerBaseHash);
+    final long scaled = (long) (IdentityConstants.ITERATION_COUNT * scale);
+    final long rounded = (scaled / ITERATION_GRANULARITY) * ITERATION_GRANULARITY;
+    return (int) Math.max(IdentityConstants.ITERATION_COUNT, Math.min(maximumIterationCount, rounded));
+  }
+
+  private void hash(final String password, final byte[] salt) {
+    hashGenerator.hash(password, salt, IdentityConstants.ITERATION_COUNT, IdentityConstants.HASH_LENGTH);
+  }
+}
@@ -43,11 +43,14 @@ import org.springframework.util.Assert;
 public class PermittableGroupCommandHandler {
 
   private final PermittableGroups repository;
+  private final RoleTokenPermissionCache roleTokenPermissionCache;
 
   @Autowired
-  public PermittableGroupCommandHandler(final PermittableGroups repository)
+  public PermittableGroupCommandHandler(final PermittableGroups repository,
+                                        final RoleTokenPermissionCache roleTokenPermissionCache)
   {
     this.repository = repository;
+    this.roleTokenPermissionCache = roleTokenPermissionCache;
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
@@ -56,6 +59,8 @@ public class PermittableGroupCommandHandler {
     Assert.isTrue(!repository.get(command.getInstance().getIdentifier()).isPresent());
 
     repository.add(map(command.getInstance()));
+    //Roles may reference a permittable group before it exists, so any compiled role could be affected.
+    roleTokenPermissionCache.invalidateAll();
 
     return command.getInstance().getIdentifier();
   }
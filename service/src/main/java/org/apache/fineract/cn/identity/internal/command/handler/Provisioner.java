@@ -48,6 +48,7 @@ import org.apache.fineract.cn.identity.internal.repository.Signatures;
 import org.apache.fineract.cn.identity.internal.repository.Tenants;
 import org.apache.fineract.cn.identity.internal.repository.UserEntity;
 import org.apache.fineract.cn.identity.internal.repository.Users;
+import org.apache.fineract.cn.identity.internal.repository.UsersByRole;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.apache.fineract.cn.lang.TenantContextHolder;
@@ -66,6 +67,7 @@ public class Provisioner {
   private final Signatures signature;
   private final Tenants tenant;
   private final Users users;
+  private final UsersByRole usersByRole;
   private final PermittableGroups permittableGroups;
   private final Permissions permissions;
   private final Roles roles;
@@ -91,6 +93,7 @@ public class Provisioner {
           final Signatures signature,
           final Tenants tenant,
           final Users users,
+          final UsersByRole usersByRole,
           final PermittableGroups permittableGroups,
           final Permissions permissions,
           final Roles roles,
@@ -105,6 +108,7 @@ public class Provisioner {
     this.signature = signature;
     this.tenant = tenant;
     this.users = users;
+    this.usersByRole = usersByRole;
     this.permittableGroups = permittableGroups;
     this.permissions = permissions;
     this.roles = roles;
@@ -118,6 +122,7 @@ public class Provisioner {
   }
 
   public synchronized ApplicationSignatureSet provisionTenant(final String initialPasswordHash) {
+    tenant.invalidate();
     {
       final Optional<ApplicationSignatureSet> latestSignature = signature.getAllKeyTimestamps().stream()
           .max(String::compareTo)
@@ -132,9 +137,14 @@ public class Provisioner {
           final UserEntity suUser = userEntityCreator
               .build(null, IdentityConstants.SU_NAME, IdentityConstants.SU_ROLE, initialPasswordHash, true,
                   fixedSalt.get().array(), timeToChangePasswordAfterExpirationInDays);
-          users.add(suUser);
+          users.changePassword(suUser);
           logger.info("Successfully changed admin password '{}'...", TenantContextHolder.checkedGetIdentifier());
 
+          //Tenants provisioned before users were indexed by role get the index here.
+          usersByRole.backfill();
+          //The same goes for the application registry.
+          applicationSignatures.backfillRegistry();
+
           return latestSignature.get();
         }
       }
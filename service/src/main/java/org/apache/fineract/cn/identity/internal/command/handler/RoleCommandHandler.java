@@ -46,11 +46,14 @@ import org.springframework.util.Assert;
 public class RoleCommandHandler {
 
   private final Roles roles;
+  private final RoleTokenPermissionCache roleTokenPermissionCache;
 
   @Autowired
-  public RoleCommandHandler(final Roles roles)
+  public RoleCommandHandler(final Roles roles,
+                            final RoleTokenPermissionCache roleTokenPermissionCache)
   {
     this.roles = roles;
+    this.roleTokenPermissionCache = roleTokenPermissionCache;
   }
 
   @CommandHandler(logStart = CommandLogLevel.INFO, logFinish = CommandLogLevel.INFO)
@@ -60,6 +63,7 @@ public class RoleCommandHandler {
     Assert.isTrue(instance.isPresent());
 
     instance.ifPresent(x -> roles.change(mapRole(command.getInstance())));
+    roleTokenPermissionCache.invalidate(command.getIdentifier());
 
     return command.getInstance().getIdentifier();
   }
@@ -70,6 +74,7 @@ public class RoleCommandHandler {
     Assert.isTrue(!roles.get(command.getInstance().getIdentifier()).isPresent());
 
     roles.add(mapRole(command.getInstance()));
+    roleTokenPermissionCache.invalidate(command.getInstance().getIdentifier());
 
     return command.getInstance().getIdentifier();
   }
@@ -81,6 +86,7 @@ public class RoleCommandHandler {
     Assert.isTrue(instance.isPresent());
 
     instance.ifPresent(roles::delete);
+    roleTokenPermissionCache.invalidate(command.getIdentifier());
 
     return command.getIdentifier();
   }
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.Set;
+import java.util.function.Supplier;
+import org.apache.fineract.cn.anubis.api.v1.domain.TokenPermission;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the expanded and minified token permissions of each role, so that issuing a token does not require reading
+ * the role and each of its permittable groups.  The cached sets are unmodifiable; callers must copy them before
+ * adding permissions.
+ */
+@Component
+public class RoleTokenPermissionCache {
+  private final TenantScopedCache<String, Set<TokenPermission>> cache;
+
+  @Autowired
+  RoleTokenPermissionCache(
+      @Value("${identity.cache.rolePermissions.maximumSize:1000}") final long maximumSize,
+      @Value("${identity.cache.rolePermissions.expireAfterWriteSeconds:300}") final long expireAfterWriteSeconds) {
+    this.cache = new TenantScopedCache<>(maximumSize, expireAfterWriteSeconds);
+  }
+
+  Set<TokenPermission> get(final String roleIdentifier, final Supplier<Set<TokenPermission>> compiler) {
+    return cache.get(roleIdentifier, compiler::get);
+  }
+
+  void invalidate(final String roleIdentifier) {
+    cache.invalidate(roleIdentifier);
+  }
+
+  void invalidateAll() {
+    cache.invalidateTenant();
+  }
+}
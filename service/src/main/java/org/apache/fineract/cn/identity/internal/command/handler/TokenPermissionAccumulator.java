@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
+import org.apache.fineract.cn.anubis.api.v1.domain.TokenPermission;
+import org.apache.fineract.cn.identity.internal.repository.AllowedOperationType;
+import org.apache.fineract.cn.identity.internal.service.RoleMapper;
+
+/**
+ * Collects the operations allowed per path as an AllowedOperationType mask while token permissions are being
+ * computed, merging permissions for the same path as they are added.  TokenPermission objects are only created in
+ * toTokenPermissions, and all of them share one unmodifiable set of allowed operations per mask.
+ */
+class TokenPermissionAccumulator {
+  private static final Set<AllowedOperation>[] ALLOWED_OPERATIONS_BY_MASK = allowedOperationsByMask();
+
+  private final Map<String, Integer> masksByPath = new HashMap<>();
+
+  void add(final String path, final int mask) {
+    if (mask != 0)
+      masksByPath.merge(path, mask, (x, y) -> x | y);
+  }
+
+  void add(final String path, final AllowedOperation... allowedOperations) {
+    int mask = 0;
+    for (final AllowedOperation allowedOperation : allowedOperations) {
+      mask |= maskOf(allowedOperation);
+    }
+    add(path, mask);
+  }
+
+  void addAll(final Collection<TokenPermission> tokenPermissions) {
+    for (final TokenPermission tokenPermission : tokenPermissions) {
+      int mask = 0;
+      for (final AllowedOperation allowedOperation : tokenPermission.getAllowedOperations()) {
+        mask |= maskOf(allowedOperation);
+      }
+      add(tokenPermission.getPath(), mask);
+    }
+  }
+
+  Set<TokenPermission> toTokenPermissions() {
+    final Set<TokenPermission> ret = new HashSet<>(masksByPath.size() * 2);
+    masksByPath.forEach((path, mask) -> ret.add(new TokenPermission(path, ALLOWED_OPERATIONS_BY_MASK[mask])));
+    return ret;
+  }
+
+  private static int maskOf(final AllowedOperation allowedOperation) {
+    return AllowedOperationType.valueOf(allowedOperation.name()).mask();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<AllowedOperation>[] allowedOperationsByMask() {
+    final Set<AllowedOperation>[] ret = new Set[1 << AllowedOperationType.values().length];
+    for (int mask = 0; mask < ret.length; mask++) {
+      final Set<AllowedOperation> set = EnumSet.noneOf(AllowedOperation.class);
+      AllowedOperationType.fromMask(mask).forEach(x -> set.add(RoleMapper.mapAllowedOperation(x)));
+      ret[mask] = Collections.unmodifiableSet(set);
+    }
+    return ret;
+  }
+}
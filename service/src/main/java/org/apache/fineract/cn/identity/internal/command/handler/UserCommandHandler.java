@@ -18,9 +18,6 @@
  */
 package org.apache.fineract.cn.identity.internal.command.handler;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
 import org.apache.fineract.cn.command.annotation.*;
 import org.apache.fineract.cn.command.kafka.KafkaTopicConstants;
 import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
@@ -28,6 +25,9 @@ import org.apache.fineract.cn.identity.internal.command.ChangeUserPasswordComman
 import org.apache.fineract.cn.identity.internal.command.ChangeUserRoleCommand;
 import org.apache.fineract.cn.identity.internal.command.CreateUserCommand;
 import org.apache.fineract.cn.identity.internal.command.CreateUserWithSocialMediaCommand;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerificationException;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerifier;
+import org.apache.fineract.cn.identity.internal.firebase.VerifiedFirebaseToken;
 import org.apache.fineract.cn.identity.internal.repository.UserEntity;
 import org.apache.fineract.cn.identity.internal.repository.Users;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
@@ -49,15 +49,18 @@ public class UserCommandHandler {
 
   private final Users usersRepository;
   private final UserEntityCreator userEntityCreator;
+  private final FirebaseTokenVerifier firebaseTokenVerifier;
   private final Logger logger;
 
   @Autowired
   UserCommandHandler(
       final Users usersRepository,
       final UserEntityCreator userEntityCreator,
+      final FirebaseTokenVerifier firebaseTokenVerifier,
       @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
     this.usersRepository = usersRepository;
     this.userEntityCreator = userEntityCreator;
+    this.firebaseTokenVerifier = firebaseTokenVerifier;
     this.logger = logger;
   }
 
@@ -68,8 +71,7 @@ public class UserCommandHandler {
         .orElseThrow(() -> ServiceException.notFound(
             "User " + command.getIdentifier() + " doesn't exist."));
 
-    user.setRole(command.getRole());
-    usersRepository.add(user);
+    usersRepository.changeRole(user, command.getRole());
 
     return user.getIdentifier();
   }
@@ -92,7 +94,7 @@ public class UserCommandHandler {
         command.getPassword(),
         !SecurityContextHolder.getContext().getAuthentication().getName()
             .equals(command.getIdentifier()));
-    usersRepository.add(userWithNewPassword);
+    usersRepository.changePassword(userWithNewPassword);
 
     return user.getIdentifier();
   }
@@ -127,15 +129,12 @@ public class UserCommandHandler {
   public String process(final CreateUserWithSocialMediaCommand command) {
     Assert.hasText(command.getFirebaseToken());
 
-    FirebaseToken token;
+    final VerifiedFirebaseToken token;
     try {
-      token = FirebaseAuth.getInstance().verifyIdToken(command.getFirebaseToken());
-    } catch (FirebaseAuthException e) {
+      token = firebaseTokenVerifier.verify(command.getFirebaseToken());
+    } catch (final FirebaseTokenVerificationException e) {
       logger.error("Incorrect firebase token", e);
       throw ServiceException.badRequest("Firebase token is incorrect.", e);
-    } catch (final IllegalArgumentException e) {
-      logger.error("Error getting firebase token", e);
-      throw ServiceException.badRequest("There was an error getting information from firebase token.", e);
     }
 
     if (!token.getEmail().equals(command.getIdentifier()))
@@ -21,6 +21,7 @@ package org.apache.fineract.cn.identity.internal.command.handler;
 import com.datastax.driver.core.LocalDate;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.apache.fineract.cn.crypto.HashGenerator;
 import org.apache.fineract.cn.crypto.SaltGenerator;
 import org.apache.fineract.cn.identity.internal.repository.PrivateTenantInfoEntity;
@@ -32,6 +33,7 @@ import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.util.EncodingUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 
 /**
  * @author Myrle Krantz
@@ -43,15 +45,23 @@ public class UserEntityCreator {
   private final SaltGenerator saltGenerator;
   private final HashGenerator hashGenerator;
   private final Tenants tenants;
+  private final PasswordHashExecutor passwordHashExecutor;
+  private final PasswordHashPolicy passwordHashPolicy;
+  private final byte[] unknownUserSalt;
 
   @Autowired
   UserEntityCreator(
       final SaltGenerator saltGenerator,
       final HashGenerator hashGenerator,
-      final Tenants tenants) {
+      final Tenants tenants,
+      final PasswordHashExecutor passwordHashExecutor,
+      final PasswordHashPolicy passwordHashPolicy) {
     this.saltGenerator = saltGenerator;
     this.hashGenerator = hashGenerator;
     this.tenants = tenants;
+    this.passwordHashExecutor = passwordHashExecutor;
+    this.passwordHashPolicy = passwordHashPolicy;
+    this.unknownUserSalt = saltGenerator.createRandomSalt();
   }
 
 
@@ -84,18 +94,97 @@ public class UserEntityCreator {
     userEntity.setRole(role);
     userEntity.setId(id);
 
+    setPassword(userEntity, password, fixedSalt);
+    userEntity.setPasswordExpiresOn(deriveExpiration(passwordMustChange, passwordExpiresInDays));
+
+    return userEntity;
+  }
+
+  /**
+   * Like build, but returns as soon as the hashing is queued on the password hash pool, so that the passwords of many
+   * users can be hashed in parallel.  A password is required.
+   */
+  public CompletableFuture<UserEntity> buildAsync(
+      final String id,
+      final String identifier,
+      final String role,
+      final String password,
+      final boolean passwordMustChange,
+      final byte[] fixedSalt,
+      final int passwordExpiresInDays) {
+    Assert.hasText(password);
+
+    final UserEntity userEntity = new UserEntity();
+
+    userEntity.setIdentifier(identifier);
+    userEntity.setRole(role);
+    userEntity.setId(id);
+    userEntity.setPasswordExpiresOn(deriveExpiration(passwordMustChange, passwordExpiresInDays));
+
+    final int iterationCount = passwordHashPolicy.getIterationCount();
+    final byte[] variableSalt = this.saltGenerator.createRandomSalt();
+    userEntity.setSalt(ByteBuffer.wrap(variableSalt));
+    userEntity.setIterationCount(iterationCount);
+
+    return passwordHashExecutor.submit(() -> hash(password, variableSalt, fixedSalt, iterationCount))
+        .thenApply(hash -> {
+          userEntity.setPassword(ByteBuffer.wrap(hash));
+          return userEntity;
+        });
+  }
+
+  /**
+   * Checks the password against a made-up user with the current iteration count, and ignores the result, so that
+   * refusing a user who does not exist costs as much as refusing a wrong password.
+   */
+  void verifyForUnknownUser(final byte[] password, final byte[] fixedSalt) {
+    final byte[] unknownUserHash = new byte[IdentityConstants.HASH_LENGTH / Byte.SIZE];
+    passwordHashExecutor.call(() -> hashGenerator.isEqual(
+        unknownUserHash,
+        password,
+        fixedSalt,
+        unknownUserSalt,
+        passwordHashPolicy.getIterationCount(),
+        IdentityConstants.HASH_LENGTH));
+  }
+
+  boolean needsRehash(final UserEntity user) {
+    return user.getIterationCount() != passwordHashPolicy.getIterationCount();
+  }
+
+  /**
+   * Hashes the user's already verified password again with the current iteration count.  Everything other than the
+   * hash, salt and iteration count is carried over unchanged.
+   */
+  UserEntity rehash(final UserEntity user, final String password, final byte[] fixedSalt) {
+    final UserEntity userEntity = new UserEntity();
+
+    userEntity.setIdentifier(user.getIdentifier());
+    userEntity.setRole(user.getRole());
+    userEntity.setId(user.getId());
+    userEntity.setPasswordExpiresOn(user.getPasswordExpiresOn());
+
+    setPassword(userEntity, password, fixedSalt);
+
+    return userEntity;
+  }
+
+  private void setPassword(final UserEntity userEntity, final String password, final byte[] fixedSalt) {
+    final int iterationCount = passwordHashPolicy.getIterationCount();
     final byte[] variableSalt = this.saltGenerator.createRandomSalt();
-    final byte[] fullSalt = EncodingUtils.concatenate(variableSalt, fixedSalt);
 
     Optional.ofNullable(password).ifPresent(
-        p -> userEntity.setPassword(ByteBuffer.wrap(this.hashGenerator.hash(password, fullSalt,
-            IdentityConstants.ITERATION_COUNT, IdentityConstants.HASH_LENGTH))));
+        p -> userEntity.setPassword(ByteBuffer.wrap(passwordHashExecutor.call(() -> hash(p, variableSalt, fixedSalt,
+            iterationCount)))));
 
     userEntity.setSalt(ByteBuffer.wrap(variableSalt));
-    userEntity.setIterationCount(IdentityConstants.ITERATION_COUNT);
-    userEntity.setPasswordExpiresOn(deriveExpiration(passwordMustChange, passwordExpiresInDays));
+    userEntity.setIterationCount(iterationCount);
+  }
 
-    return userEntity;
+  private byte[] hash(final String password, final byte[] variableSalt, final byte[] fixedSalt,
+      final int iterationCount) {
+    final byte[] fullSalt = EncodingUtils.concatenate(variableSalt, fixedSalt);
+    return this.hashGenerator.hash(password, fullSalt, iterationCount, IdentityConstants.HASH_LENGTH);
   }
 
   private LocalDate deriveExpiration(final boolean passwordMustChange,
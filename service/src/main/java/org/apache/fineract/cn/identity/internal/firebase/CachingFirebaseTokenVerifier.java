@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Remembers successful verifications until the token expires, so that a client logging in repeatedly with the same
+ * token is only verified once.  Tokens are keyed by their SHA-256 hash, so the cache does not hold the tokens
+ * themselves.  Failed verifications are not remembered.
+ */
+public class CachingFirebaseTokenVerifier implements FirebaseTokenVerifier, PublicMetrics {
+  private final FirebaseTokenVerifier delegate;
+  private final Clock clock;
+  private final Cache<HashCode, VerifiedFirebaseToken> verified;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public CachingFirebaseTokenVerifier(
+      final FirebaseTokenVerifier delegate,
+      final long maximumSize,
+      final long expireAfterWriteSeconds,
+      final Clock clock) {
+    this.delegate = delegate;
+    this.clock = clock;
+    this.verified = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  @Override
+  public VerifiedFirebaseToken verify(final String idToken) throws FirebaseTokenVerificationException {
+    final HashCode key = Hashing.sha256().hashString(idToken, StandardCharsets.UTF_8);
+    final Instant now = clock.instant();
+
+    final VerifiedFirebaseToken cached = verified.getIfPresent(key);
+    if (cached != null) {
+      if (cached.getExpiration().isAfter(now)) {
+        hits.increment();
+        return cached;
+      }
+      verified.invalidate(key);
+    }
+
+    misses.increment();
+    final VerifiedFirebaseToken ret = delegate.verify(idToken);
+    if (ret.getExpiration().isAfter(now))
+      verified.put(key, ret);
+    return ret;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.firebase.verifications.cached.hits", hits.sum()),
+        new Metric<>("identity.firebase.verifications.cached.misses", misses.sum()));
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.fineract.cn.lang.ServiceError;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.slf4j.Logger;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.util.Base64Utils;
+
+/**
+ * Initializes the default FirebaseApp off the startup path, on a background thread, either as soon as the service
+ * starts or on first use.  Until initialization has succeeded, only the firebase grant is affected: verification
+ * waits a bounded time for it and then fails with a 503.  After a failed initialization, the next use starts another
+ * attempt, once the retry interval has passed.
+ */
+public class FirebaseInitializer implements PublicMetrics {
+  private final String serviceAccountKey;
+  private final String databaseUrl;
+  private final long awaitMillis;
+  private final long retryIntervalNanos;
+  private final Logger logger;
+  private final Object lock = new Object();
+  private final LongAdder attempts = new LongAdder();
+  private volatile CompletableFuture<FirebaseApp> app;
+  private volatile long failedAt;
+  private volatile long initializationMillis = -1;
+
+  public FirebaseInitializer(
+      final String serviceAccountKey,
+      final String databaseUrl,
+      final long awaitMillis,
+      final long retryIntervalMillis,
+      final Logger logger) {
+    this.serviceAccountKey = serviceAccountKey;
+    this.databaseUrl = databaseUrl;
+    this.awaitMillis = awaitMillis;
+    this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(retryIntervalMillis);
+    this.logger = logger;
+  }
+
+  public void startInBackground() {
+    currentAttempt();
+  }
+
+  public boolean isReady() {
+    final CompletableFuture<FirebaseApp> current = app;
+    return current != null && current.isDone() && !current.isCompletedExceptionally();
+  }
+
+  public long getAttempts() {
+    return attempts.sum();
+  }
+
+  public long getInitializationMillis() {
+    return initializationMillis;
+  }
+
+  /**
+   * Starts initialization if that has not happened yet, or if the last attempt failed, and waits a bounded time for it
+   * to finish.
+   *
+   * @throws ServiceException with status 503 if Firebase could not be initialized in time.
+   */
+  public FirebaseApp awaitApp() {
+    try {
+      return currentAttempt().get(awaitMillis, TimeUnit.MILLISECONDS);
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw unavailable();
+    }
+    catch (final ExecutionException | TimeoutException e) {
+      throw unavailable();
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.firebase.ready", isReady() ? 1 : 0),
+        new Metric<>("identity.firebase.initializationMillis", initializationMillis),
+        new Metric<>("identity.firebase.initializationAttempts", getAttempts()));
+  }
+
+  private CompletableFuture<FirebaseApp> currentAttempt() {
+    synchronized (lock) {
+      final CompletableFuture<FirebaseApp> current = app;
+      if (current != null
+          && !(current.isCompletedExceptionally() && System.nanoTime() - failedAt >= retryIntervalNanos))
+        return current;
+
+      final CompletableFuture<FirebaseApp> next = new CompletableFuture<>();
+      app = next;
+      attempts.increment();
+      final Thread thread = new Thread(() -> initialize(next), "identity-firebase-initializer");
+      thread.setDaemon(true);
+      thread.start();
+      return next;
+    }
+  }
+
+  private void initialize(final CompletableFuture<FirebaseApp> attempt) {
+    final long startedAt = System.nanoTime();
+    try {
+      final FirebaseApp ret;
+      final Optional<FirebaseApp> existing = FirebaseApp.getApps().stream()
+          .filter(x -> FirebaseApp.DEFAULT_APP_NAME.equals(x.getName()))
+          .findAny();
+      if (existing.isPresent()) {
+        ret = existing.get();
+      }
+      else {
+        try (final InputStream serviceAccount = new ByteArrayInputStream(
+            Base64Utils.decodeFromString(serviceAccountKey))) {
+          final FirebaseOptions options = new FirebaseOptions.Builder()
+              .setCredentials(GoogleCredentials.fromStream(serviceAccount))
+              .setDatabaseUrl(databaseUrl)
+              .build();
+
+          ret = FirebaseApp.initializeApp(options);
+        }
+      }
+      initializationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+      logger.info("Firebase initialized in {} ms.", initializationMillis);
+      attempt.complete(ret);
+    }
+    catch (final IOException | RuntimeException e) {
+      initializationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+      logger.error("Firebase initialization failed after {} ms.  The firebase grant type will be retried on next use.",
+          initializationMillis, e);
+      failedAt = System.nanoTime();
+      attempt.completeExceptionally(e);
+    }
+  }
+
+  private static ServiceException unavailable() {
+    return new ServiceException(ServiceError.create(503)
+        .message("Firebase authentication is not available; try again later.")
+        .build());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Verifies tokens locally against Google's published signing certificates, as described in the Firebase
+ * documentation for verifying ID tokens with a third-party JWT library.  The certificates are fetched once, refreshed
+ * periodically, and refetched early when a token is signed with a key which is not yet known.
+ */
+public class LocalKeySetFirebaseTokenVerifier implements FirebaseTokenVerifier {
+  public static final String GOOGLE_CERTIFICATES_URL
+      = "https://www.googleapis.com/robot/v1/metadata/x509/securetoken@system.gserviceaccount.com";
+  private static final long MINIMUM_REFETCH_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final String projectId;
+  private final Callable<Map<String, PublicKey>> keyLoader;
+  private final long refreshIntervalSeconds;
+  private final Logger logger;
+  private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+  private volatile long lastLoadedAt = 0;
+  private ScheduledExecutorService refresher;
+
+  public LocalKeySetFirebaseTokenVerifier(
+      final String projectId,
+      final Callable<Map<String, PublicKey>> keyLoader,
+      final long refreshIntervalSeconds,
+      final Logger logger) {
+    this.projectId = projectId;
+    this.keyLoader = keyLoader;
+    this.refreshIntervalSeconds = refreshIntervalSeconds;
+    this.logger = logger;
+  }
+
+  public void start() {
+    refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "identity-firebase-key-refresher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    refresher.scheduleWithFixedDelay(this::loadKeys, 0, refreshIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  public void stop() {
+    if (refresher != null)
+      refresher.shutdownNow();
+  }
+
+  @Override
+  public VerifiedFirebaseToken verify(final String idToken) throws FirebaseTokenVerificationException {
+    final Jws<Claims> jws;
+    try {
+      jws = Jwts.parser()
+          .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(final JwsHeader header, final Claims claims) {
+              return getKey(header.getKeyId());
+            }
+          })
+          .parseClaimsJws(idToken);
+    }
+    catch (final JwtException | IllegalArgumentException e) {
+      throw new FirebaseTokenVerificationException("Firebase token is incorrect.", e);
+    }
+
+    if (!SignatureAlgorithm.RS256.getValue().equals(jws.getHeader().getAlgorithm()))
+      throw new FirebaseTokenVerificationException("Firebase token is not signed with RS256.");
+
+    final Claims claims = jws.getBody();
+    if (!projectId.equals(claims.getAudience()))
+      throw new FirebaseTokenVerificationException("Firebase token has an incorrect audience.");
+    if (!("https://securetoken.google.com/" + projectId).equals(claims.getIssuer()))
+      throw new FirebaseTokenVerificationException("Firebase token has an incorrect issuer.");
+    if (claims.getSubject() == null || claims.getSubject().isEmpty() || claims.getSubject().length() > 128)
+      throw new FirebaseTokenVerificationException("Firebase token has an incorrect subject.");
+    if (claims.getExpiration() == null)
+      throw new FirebaseTokenVerificationException("Firebase token has no expiration.");
+    if (claims.getIssuedAt() == null || claims.getIssuedAt().toInstant().isAfter(Instant.now()))
+      throw new FirebaseTokenVerificationException("Firebase token has an incorrect issue time.");
+
+    return new VerifiedFirebaseToken(claims.getSubject(), claims.get("email", String.class),
+        claims.getExpiration().toInstant());
+  }
+
+  private PublicKey getKey(final String keyId) {
+    PublicKey ret = keyId == null ? null : keys.get(keyId);
+    if (ret == null && System.currentTimeMillis() - lastLoadedAt > MINIMUM_REFETCH_INTERVAL_MILLIS) {
+      loadKeys();
+      ret = keyId == null ? null : keys.get(keyId);
+    }
+    if (ret == null)
+      throw new SignatureException("Firebase token is signed with an unknown key.");
+    return ret;
+  }
+
+  private synchronized void loadKeys() {
+    try {
+      keys = Collections.unmodifiableMap(new HashMap<>(keyLoader.call()));
+      lastLoadedAt = System.currentTimeMillis();
+    }
+    catch (final Exception e) {
+      logger.warn("Failed to load the Firebase signing keys.", e);
+    }
+  }
+
+  /**
+   * Loads the certificates from a URL serving a JSON object which maps key ids to PEM encoded X.509 certificates.
+   */
+  public static Callable<Map<String, PublicKey>> certificatesFrom(final URL url, final Gson gson) {
+    return () -> {
+      final Map<String, String> certificates;
+      try (final Reader reader = new InputStreamReader(url.openStream(), StandardCharsets.UTF_8)) {
+        certificates = gson.fromJson(reader, new TypeToken<Map<String, String>>(){}.getType());
+      }
+
+      final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+      final Map<String, PublicKey> ret = new HashMap<>();
+      for (final Map.Entry<String, String> certificate : certificates.entrySet()) {
+        ret.put(certificate.getKey(), parseCertificate(certificateFactory, certificate.getValue()));
+      }
+      return ret;
+    };
+  }
+
+  private static PublicKey parseCertificate(final CertificateFactory certificateFactory, final String pem)
+      throws CertificateException, IOException {
+    try (final InputStream in = new ByteArrayInputStream(pem.getBytes(StandardCharsets.US_ASCII))) {
+      return certificateFactory.generateCertificate(in).getPublicKey();
+    }
+  }
+}
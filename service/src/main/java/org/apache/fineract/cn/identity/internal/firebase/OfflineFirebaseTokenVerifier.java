@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+
+/**
+ * A stand-in for running without access to Firebase, in component tests and benchmarks.  It accepts unsigned JWTs
+ * carrying a subject, an email and an expiration, and checks nothing but their expiration.  Never use this in
+ * production.
+ */
+public class OfflineFirebaseTokenVerifier implements FirebaseTokenVerifier {
+  @Override
+  public VerifiedFirebaseToken verify(final String idToken) throws FirebaseTokenVerificationException {
+    final Claims claims;
+    try {
+      claims = Jwts.parser().parseClaimsJwt(idToken).getBody();
+    }
+    catch (final JwtException | IllegalArgumentException e) {
+      throw new FirebaseTokenVerificationException("Firebase token is incorrect.", e);
+    }
+
+    if (claims.getExpiration() == null)
+      throw new FirebaseTokenVerificationException("Firebase token has no expiration.");
+
+    return new VerifiedFirebaseToken(claims.getSubject(), claims.get("email", String.class),
+        claims.getExpiration().toInstant());
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import java.time.Instant;
+
+/**
+ * Verifies tokens with the Firebase Admin SDK, once the FirebaseApp has been initialized.
+ */
+public class SdkFirebaseTokenVerifier implements FirebaseTokenVerifier {
+  private final FirebaseInitializer firebaseInitializer;
+
+  public SdkFirebaseTokenVerifier(final FirebaseInitializer firebaseInitializer) {
+    this.firebaseInitializer = firebaseInitializer;
+  }
+
+  @Override
+  public VerifiedFirebaseToken verify(final String idToken) throws FirebaseTokenVerificationException {
+    final FirebaseAuth firebaseAuth = FirebaseAuth.getInstance(firebaseInitializer.awaitApp());
+    final FirebaseToken token;
+    try {
+      token = firebaseAuth.verifyIdToken(idToken);
+    }
+    catch (final FirebaseAuthException | IllegalArgumentException e) {
+      throw new FirebaseTokenVerificationException("Firebase token is incorrect.", e);
+    }
+
+    final Object expiration = token.getClaims().get("exp");
+    if (!(expiration instanceof Number))
+      throw new FirebaseTokenVerificationException("Firebase token has no expiration.");
+
+    return new VerifiedFirebaseToken(token.getUid(), token.getEmail(),
+        Instant.ofEpochSecond(((Number) expiration).longValue()));
+  }
+}
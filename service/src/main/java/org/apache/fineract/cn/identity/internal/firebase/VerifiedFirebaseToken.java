@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * The parts of a verified Firebase ID token which identity uses.
+ */
+public class VerifiedFirebaseToken {
+  private final String uid;
+  private final String email;
+  private final Instant expiration;
+
+  public VerifiedFirebaseToken(final String uid, final String email, final Instant expiration) {
+    this.uid = uid;
+    this.email = email;
+    this.expiration = expiration;
+  }
+
+  public String getUid() {
+    return uid;
+  }
+
+  public String getEmail() {
+    return email;
+  }
+
+  public Instant getExpiration() {
+    return expiration;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    final VerifiedFirebaseToken that = (VerifiedFirebaseToken) o;
+    return Objects.equals(uid, that.uid) &&
+        Objects.equals(email, that.email) &&
+        Objects.equals(expiration, that.expiration);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(uid, email, expiration);
+  }
+
+  @Override
+  public String toString() {
+    return "VerifiedFirebaseToken{" +
+        "uid='" + uid + '\'' +
+        ", email='" + email + '\'' +
+        ", expiration=" + expiration +
+        '}';
+  }
+}
@@ -21,7 +21,9 @@ package org.apache.fineract.cn.identity.internal.repository;
 import com.datastax.driver.core.TypeCodec;
 import com.datastax.driver.extras.codecs.enums.EnumNameCodec;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -33,6 +35,43 @@ public enum AllowedOperationType {
   public static final Set<AllowedOperationType> ALL = Collections.unmodifiableSet(
       new HashSet<AllowedOperationType>() {{add(READ); add(CHANGE); add(DELETE);}});
 
+  //One unmodifiable set for each of the eight possible masks, indexed by mask.
+  private static final Set<AllowedOperationType>[] SETS_BY_MASK = setsByMask();
+
+  /**
+   * A single bit identifying this operation, so that combinations of operations can be held in an int.
+   */
+  public int mask() {
+    return 1 << ordinal();
+  }
+
+  public static int maskOf(final Collection<AllowedOperationType> allowedOperations) {
+    int mask = 0;
+    for (final AllowedOperationType allowedOperation : allowedOperations) {
+      mask |= allowedOperation.mask();
+    }
+    return mask;
+  }
+
+  public static Set<AllowedOperationType> fromMask(final int mask) {
+    return SETS_BY_MASK[mask];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<AllowedOperationType>[] setsByMask() {
+    final AllowedOperationType[] values = values();
+    final Set<AllowedOperationType>[] ret = new Set[1 << values.length];
+    for (int mask = 0; mask < ret.length; mask++) {
+      final EnumSet<AllowedOperationType> set = EnumSet.noneOf(AllowedOperationType.class);
+      for (final AllowedOperationType value : values) {
+        if ((mask & value.mask()) != 0)
+          set.add(value);
+      }
+      ret[mask] = Collections.unmodifiableSet(set);
+    }
+    return ret;
+  }
+
   static TypeCodec<AllowedOperationType> getCodec()
   {
     return new EnumNameCodec<>(AllowedOperationType.class);
@@ -18,15 +18,38 @@
  */
 package org.apache.fineract.cn.identity.internal.repository;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
+ * The enabled flags looked up for an application and user are held briefly, so that the flags of all the groups an
+ * application requests can be answered together.  Changes made on this instance are visible immediately; changes made
+ * on other instances become visible once the entries expire.
+ *
  * @author Myrle Krantz
  */
 @Component
@@ -36,14 +59,38 @@ public class ApplicationPermissionUsers {
   static final String PERMITTABLE_GROUP_IDENTIFIER_COLUMN = "permittable_group_identifier";
   static final String USER_IDENTIFIER_COLUMN = "user_identifier";
   static final String ENABLED_COLUMN = "enabled";
+
+  private static final RegularStatement SELECT_ENABLED_FLAGS
+      = QueryBuilder.select(PERMITTABLE_GROUP_IDENTIFIER_COLUMN, ENABLED_COLUMN)
+      .from(TABLE_NAME)
+      .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.in(PERMITTABLE_GROUP_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(USER_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement INSERT_ENABLED_FLAG = QueryBuilder.insertInto(TABLE_NAME)
+      .value(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .value(PERMITTABLE_GROUP_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .value(USER_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .value(ENABLED_COLUMN, QueryBuilder.bindMarker());
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
+  private final PreparedStatements preparedStatements;
+  //Keyed by application identifier and user identifier.  Holds the flag of each group looked up so far.
+  private final TenantScopedCache<List<String>, Map<String, Boolean>> enabledFlags;
+  private final int batchSize;
 
   @Autowired
   public ApplicationPermissionUsers(final CassandraSessionProvider cassandraSessionProvider,
-                                    final TenantAwareEntityTemplate tenantAwareEntityTemplate) {
+                                    final TenantAwareEntityTemplate tenantAwareEntityTemplate,
+                                    final PreparedStatements preparedStatements,
+                                    @Value("${identity.cache.applicationPermissionUsers.maximumSize:10000}") final long maximumSize,
+                                    @Value("${identity.cache.applicationPermissionUsers.expireAfterWriteSeconds:30}") final long expireAfterWriteSeconds,
+                                    @Value("${identity.applicationPermissionUsers.batchSize:50}") final int batchSize) {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
+    this.preparedStatements = preparedStatements;
+    this.enabledFlags = new TenantScopedCache<>(maximumSize, expireAfterWriteSeconds);
+    this.batchSize = batchSize;
   }
 
   public void buildTable() {
@@ -66,10 +113,84 @@ public class ApplicationPermissionUsers {
             .orElse(false);
   }
 
+  /**
+   * Of the given permittable groups, returns those which the user has enabled for the application.  The flags not
+   * already cached are read with one query.
+   */
+  public Set<String> enabledPermittableGroups(final String applicationIdentifier,
+                                              final String userIdentifier,
+                                              final Collection<String> permittableGroupIdentifiers) {
+    if (permittableGroupIdentifiers.isEmpty())
+      return Collections.emptySet();
+
+    final List<String> key = Arrays.asList(applicationIdentifier, userIdentifier);
+    final Map<String, Boolean> cached = enabledFlags.getIfPresent(key).orElse(Collections.emptyMap());
+
+    final List<String> missing = permittableGroupIdentifiers.stream()
+        .filter(x -> !cached.containsKey(x))
+        .distinct()
+        .collect(Collectors.toList());
+
+    final Map<String, Boolean> flags;
+    if (missing.isEmpty()) {
+      flags = cached;
+    }
+    else {
+      flags = new HashMap<>(cached);
+      missing.forEach(x -> flags.put(x, false));
+      flags.putAll(readEnabledFlags(applicationIdentifier, userIdentifier, missing));
+      enabledFlags.put(key, Collections.unmodifiableMap(flags));
+    }
+
+    return permittableGroupIdentifiers.stream()
+        .filter(x -> flags.getOrDefault(x, false))
+        .collect(Collectors.toSet());
+  }
+
+  private Map<String, Boolean> readEnabledFlags(final String applicationIdentifier,
+                                                final String userIdentifier,
+                                                final List<String> permittableGroupIdentifiers) {
+    final ResultSet result = preparedStatements.execute(SELECT_ENABLED_FLAGS,
+        applicationIdentifier, permittableGroupIdentifiers, userIdentifier);
+    final Map<String, Boolean> ret = new HashMap<>();
+    for (final Row row : result) {
+      ret.put(row.getString(PERMITTABLE_GROUP_IDENTIFIER_COLUMN), row.getBool(ENABLED_COLUMN));
+    }
+    return ret;
+  }
+
   public void setEnabled(final String applicationIdentifier,
                          final String permittableGroupIdentifier,
                          final String userIdentifier,
                          final boolean enabled) {
     tenantAwareEntityTemplate.save(new ApplicationPermissionUsersEntity(applicationIdentifier, permittableGroupIdentifier, userIdentifier, enabled));
+    enabledFlags.invalidate(Arrays.asList(applicationIdentifier, userIdentifier));
+  }
+
+  /**
+   * Sets many flags of one application.  All flags of an application are in one partition, so they are written in
+   * unlogged batches, each of which is applied as a single mutation.  The batches are kept small, to stay below the
+   * batch size warning threshold, and are written concurrently.
+   */
+  public void setEnabled(final String applicationIdentifier,
+                         final List<ApplicationPermissionUsersEntity> flags) {
+    final Session session = cassandraSessionProvider.getTenantSession();
+    final List<ResultSetFuture> writes = new ArrayList<>();
+    for (final List<ApplicationPermissionUsersEntity> chunk : Lists.partition(flags, batchSize)) {
+      final BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+      chunk.forEach(x -> batch.add(preparedStatements.bind(INSERT_ENABLED_FLAG,
+          applicationIdentifier, x.getPermittableGroupIdentifier(), x.getUserIdentifier(), x.getEnabled())));
+      writes.add(session.executeAsync(batch));
+    }
+
+    try {
+      writes.forEach(ResultSetFuture::getUninterruptibly);
+    }
+    finally {
+      flags.stream()
+          .map(ApplicationPermissionUsersEntity::getUserIdentifier)
+          .distinct()
+          .forEach(x -> enabledFlags.invalidate(Arrays.asList(applicationIdentifier, x)));
+    }
   }
 }
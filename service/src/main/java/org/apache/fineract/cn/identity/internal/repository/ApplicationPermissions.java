@@ -19,8 +19,7 @@
 package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.Session;
-import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
@@ -28,14 +27,22 @@ import com.datastax.driver.mapping.Mapper;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
+ * The permissions of an application are read as a whole partition and held briefly for token issuance.  Changes made
+ * on this instance are visible immediately; changes made on other instances become visible once the entry expires.
+ *
  * @author Myrle Krantz
  */
 @Component
@@ -45,17 +52,27 @@ public class ApplicationPermissions {
   static final String PERMITTABLE_GROUP_IDENTIFIER_COLUMN = "permittable_group_identifier";
   static final String PERMISSION_COLUMN = "permission";
 
+  private static final RegularStatement SELECT_FOR_APPLICATION = QueryBuilder.select().from(TABLE_NAME)
+      .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
   private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
+  private final TenantScopedCache<String, Map<String, PermissionType>> permissionsByApplication;
 
   @Autowired
   public ApplicationPermissions(final CassandraSessionProvider cassandraSessionProvider,
                                 final TenantAwareEntityTemplate tenantAwareEntityTemplate,
-                                final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider) {
+                                final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider,
+                                final PreparedStatements preparedStatements,
+                                @Value("${identity.cache.applicationPermissions.maximumSize:1000}") final long maximumSize,
+                                @Value("${identity.cache.applicationPermissions.expireAfterWriteSeconds:60}") final long expireAfterWriteSeconds) {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
     this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
+    this.permissionsByApplication = new TenantScopedCache<>(maximumSize, expireAfterWriteSeconds);
   }
 
   public void buildTable() {
@@ -71,6 +88,7 @@ public class ApplicationPermissions {
 
   public void add(final ApplicationPermissionEntity entity) {
     tenantAwareEntityTemplate.save(entity);
+    permissionsByApplication.invalidate(entity.getApplicationIdentifier());
   }
 
   public boolean exists(final String applicationIdentifier, final String permittableGroupIdentifier) {
@@ -82,18 +100,29 @@ public class ApplicationPermissions {
     return result.stream().map(ApplicationPermissionEntity::getPermission).collect(Collectors.toList());
   }
 
+  /**
+   * The permissions of the application keyed by permittable group identifier.  The map is shared and must not be
+   * modified.
+   */
+  public Map<String, PermissionType> getPermissionsByGroupForApplication(final String applicationIdentifier) {
+    return permissionsByApplication.get(applicationIdentifier, () -> {
+      final Map<String, PermissionType> ret = new HashMap<>();
+      getAllApplicationPermissionEntitiesForApplication(applicationIdentifier)
+          .forEach(x -> ret.put(x.getPermittableGroupIdentifier(), x.getPermission()));
+      return Collections.unmodifiableMap(ret);
+    });
+  }
+
   private List<ApplicationPermissionEntity> getAllApplicationPermissionEntitiesForApplication(final String applicationIdentifier) {
     final Mapper<ApplicationPermissionEntity> entityMapper = tenantAwareCassandraMapperProvider.getMapper(ApplicationPermissionEntity.class);
-    final Session tenantSession = cassandraSessionProvider.getTenantSession();
-
-    final Statement statement = QueryBuilder.select().from(TABLE_NAME).where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, applicationIdentifier));
 
-    return entityMapper.map(tenantSession.execute(statement)).all();
+    return entityMapper.map(preparedStatements.execute(SELECT_FOR_APPLICATION, applicationIdentifier)).all();
   }
 
   public void delete(final String applicationIdentifier, final String permittableGroupIdentifier) {
     final Optional<ApplicationPermissionEntity> toDelete = tenantAwareEntityTemplate.findById(ApplicationPermissionEntity.class, applicationIdentifier, permittableGroupIdentifier);
     toDelete.ifPresent(tenantAwareEntityTemplate::delete);
+    permissionsByApplication.invalidate(applicationIdentifier);
   }
 
   public Optional<PermissionType> getPermissionForApplication(
@@ -19,24 +19,35 @@
 package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.ResultSet;
-import com.datastax.driver.core.Session;
-import com.datastax.driver.core.Statement;
-import com.datastax.driver.core.querybuilder.Delete;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.datastax.driver.core.querybuilder.Select;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
-import com.datastax.driver.mapping.Mapper;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * @author Myrle Krantz
@@ -49,17 +60,72 @@ public class ApplicationSignatures {
   static final String PUBLIC_KEY_MOD_COLUMN = "public_key_mod";
   static final String PUBLIC_KEY_EXP_COLUMN = "public_key_exp";
 
+  private static final RegularStatement SELECT_APPLICATION_IDENTIFIERS
+      = QueryBuilder.select(APPLICATION_IDENTIFIER_COLUMN).distinct().from(TABLE_NAME);
+  private static final RegularStatement DELETE_FOR_APPLICATION = QueryBuilder.delete().from(TABLE_NAME)
+      .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement SELECT_ONE_FOR_APPLICATION = QueryBuilder.select(KEY_TIMESTAMP_COLUMN)
+      .from(TABLE_NAME)
+      .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()))
+      .limit(1);
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
   private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
+  private final Applications applications;
+  //Only applications which exist are held, so that a newly added application is seen immediately.
+  private final TenantScopedCache<String, Boolean> existingApplications;
+  private final Logger logger;
+  private final long registryBackfillIntervalSeconds;
+  //The tenants whose registry the scheduled backfill covers: those this instance has listed or changed applications of.
+  private final Set<String> tenants = ConcurrentHashMap.newKeySet();
+  private ScheduledExecutorService backfiller;
 
   @Autowired
   public ApplicationSignatures(final CassandraSessionProvider cassandraSessionProvider,
                                final TenantAwareEntityTemplate tenantAwareEntityTemplate,
-                               final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider) {
+                               final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider,
+                               final PreparedStatements preparedStatements,
+                               final Applications applications,
+                               @Value("${identity.cache.applications.maximumSize:1000}") final long maximumSize,
+                               @Value("${identity.cache.applications.expireAfterWriteSeconds:60}") final long expireAfterWriteSeconds,
+                               @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+                               @Value("${identity.applications.registry.backfillIntervalSeconds:0}") final long registryBackfillIntervalSeconds) {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
     this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
+    this.applications = applications;
+    this.existingApplications = new TenantScopedCache<>(maximumSize, expireAfterWriteSeconds);
+    this.logger = logger;
+    this.registryBackfillIntervalSeconds = registryBackfillIntervalSeconds;
+  }
+
+  /**
+   * While instances which have not been upgraded yet are running, they add and delete signatures without maintaining
+   * the registry.  For that time, identity.applications.registry.backfillIntervalSeconds can be set to backfill the
+   * registry periodically, away from any request.  It is off by default, since each backfill scans the partition keys
+   * of all signatures.
+   */
+  @PostConstruct
+  public void startBackfilling() {
+    if (registryBackfillIntervalSeconds <= 0)
+      return;
+
+    backfiller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "identity-application-registry-backfiller");
+      thread.setDaemon(true);
+      return thread;
+    });
+    backfiller.scheduleWithFixedDelay(this::backfillKnownTenants,
+        registryBackfillIntervalSeconds, registryBackfillIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopBackfilling() {
+    if (backfiller != null)
+      backfiller.shutdownNow();
   }
 
   public void buildTable() {
@@ -71,10 +137,16 @@ public class ApplicationSignatures {
         .addColumn(PUBLIC_KEY_EXP_COLUMN, DataType.varint());
 
     cassandraSessionProvider.getTenantSession().execute(create);
+
+    applications.buildTable();
+    backfillRegistry();
   }
 
   public void add(final ApplicationSignatureEntity entity) {
+    rememberTenant();
     tenantAwareEntityTemplate.save(entity);
+    applications.add(entity.getApplicationIdentifier());
+    existingApplications.put(entity.getApplicationIdentifier(), Boolean.TRUE);
   }
 
   public Optional<ApplicationSignatureEntity> get(final String applicationIdentifier, final String keyTimestamp)
@@ -92,26 +164,72 @@ public class ApplicationSignatures {
     return Optional.ofNullable(entity);
   }
 
-  public List<ApplicationSignatureEntity> getAll() {
-    final Mapper<ApplicationSignatureEntity> entityMapper = tenantAwareCassandraMapperProvider.getMapper(ApplicationSignatureEntity.class);
-    final Session tenantSession = cassandraSessionProvider.getTenantSession();
-
-    final Statement statement = QueryBuilder.select().all().from(TABLE_NAME);
-
-    return entityMapper.map(tenantSession.execute(statement)).all();
+  /**
+   * The identifiers of all applications with signatures, each once.  Read from the application registry alone, which
+   * is backfilled from the signatures when a tenant is provisioned, and periodically if so configured.
+   */
+  public List<String> getAllApplicationIdentifiers() {
+    rememberTenant();
+    try {
+      return applications.getAll();
+    }
+    catch (final InvalidQueryException e) {
+      //The registry table does not exist until the tenant is provisioned.
+      return Collections.emptyList();
+    }
   }
 
   public void delete(final String applicationIdentifier) {
-    final Delete.Where deleteStatement = QueryBuilder.delete().from(TABLE_NAME)
-            .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, applicationIdentifier));
-    cassandraSessionProvider.getTenantSession().execute(deleteStatement);
+    preparedStatements.execute(DELETE_FOR_APPLICATION, applicationIdentifier);
+    applications.delete(applicationIdentifier);
+    existingApplications.invalidate(applicationIdentifier);
   }
 
   public boolean signaturesExistForApplication(final String applicationIdentifier) {
-    final Select.Where selectStatement = QueryBuilder.select().from(TABLE_NAME)
-            .where(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, applicationIdentifier));
-    final ResultSet selected = cassandraSessionProvider.getTenantSession().execute(selectStatement);
-    final int count = selected.getAvailableWithoutFetching();
-    return count > 0;
+    return existingApplications.find(applicationIdentifier, () ->
+        preparedStatements.execute(SELECT_ONE_FOR_APPLICATION, applicationIdentifier).one() != null
+            ? Optional.of(Boolean.TRUE)
+            : Optional.empty())
+        .isPresent();
+  }
+
+  /**
+   * Adds the applications which have signatures to the registry, and removes those which no longer have any.  The
+   * registry must be read before the signatures: applications are added to the registry only after their signature
+   * is saved, so an application which was registered before the signatures were read but has no signatures was
+   * deleted.  Scans the partition keys of all signatures, so it is only run by provisioning and by the scheduled
+   * backfill, never by a listing.
+   */
+  public synchronized void backfillRegistry() {
+    applications.buildTable();
+    final List<String> registered = applications.getAll();
+    final List<String> signed = preparedStatements.execute(SELECT_APPLICATION_IDENTIFIERS).all().stream()
+        .map(x -> x.getString(APPLICATION_IDENTIFIER_COLUMN))
+        .collect(Collectors.toList());
+    signed.stream().filter(x -> !registered.contains(x)).forEach(applications::add);
+    registered.stream().filter(x -> !signed.contains(x)).forEach(x -> {
+      applications.delete(x);
+      existingApplications.invalidate(x);
+    });
+  }
+
+  private void rememberTenant() {
+    if (backfiller != null)
+      TenantContextHolder.identifier().ifPresent(tenants::add);
+  }
+
+  private void backfillKnownTenants() {
+    for (final String tenant : tenants) {
+      TenantContextHolder.setIdentifier(tenant);
+      try {
+        backfillRegistry();
+      }
+      catch (final RuntimeException e) {
+        logger.warn("Failed to backfill the application registry for tenant '{}'.", tenant, e);
+      }
+      finally {
+        TenantContextHolder.clear();
+      }
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.schemabuilder.Create;
+import com.datastax.driver.core.schemabuilder.SchemaBuilder;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * The registry of applications which have signatures, one row per application in a single partition, so that the
+ * applications can be listed without scanning isis_application_signatures.  Maintained by ApplicationSignatures.
+ */
+@Component
+public class Applications {
+  static final String TABLE_NAME = "isis_applications";
+  static final String REGISTRY_COLUMN = "registry";
+  static final String APPLICATION_IDENTIFIER_COLUMN = "application_identifier";
+  //Each tenant has its own keyspace, so there is exactly one registry per table.
+  static final String REGISTRY = "tenant";
+
+  private static final RegularStatement INSERT = QueryBuilder.insertInto(TABLE_NAME)
+      .value(REGISTRY_COLUMN, QueryBuilder.bindMarker())
+      .value(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker());
+  private static final RegularStatement DELETE = QueryBuilder.delete().from(TABLE_NAME)
+      .where(QueryBuilder.eq(REGISTRY_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(APPLICATION_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement SELECT_ALL = QueryBuilder.select(APPLICATION_IDENTIFIER_COLUMN)
+      .from(TABLE_NAME)
+      .where(QueryBuilder.eq(REGISTRY_COLUMN, QueryBuilder.bindMarker()));
+
+  private final CassandraSessionProvider cassandraSessionProvider;
+  private final PreparedStatements preparedStatements;
+
+  @Autowired
+  Applications(final CassandraSessionProvider cassandraSessionProvider,
+               final PreparedStatements preparedStatements) {
+    this.cassandraSessionProvider = cassandraSessionProvider;
+    this.preparedStatements = preparedStatements;
+  }
+
+  public void buildTable() {
+    final Create create = SchemaBuilder.createTable(TABLE_NAME)
+        .ifNotExists()
+        .addPartitionKey(REGISTRY_COLUMN, DataType.text())
+        .addClusteringColumn(APPLICATION_IDENTIFIER_COLUMN, DataType.text());
+
+    cassandraSessionProvider.getTenantSession().execute(create);
+  }
+
+  void add(final String applicationIdentifier) {
+    preparedStatements.execute(INSERT, REGISTRY, applicationIdentifier);
+  }
+
+  void delete(final String applicationIdentifier) {
+    preparedStatements.execute(DELETE, REGISTRY, applicationIdentifier);
+  }
+
+  List<String> getAll() {
+    return preparedStatements.execute(SELECT_ALL, REGISTRY).all().stream()
+        .map(x -> x.getString(APPLICATION_IDENTIFIER_COLUMN))
+        .collect(Collectors.toList());
+  }
+}
@@ -19,8 +19,7 @@
 package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.Session;
-import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.CreateType;
@@ -50,18 +49,23 @@ public class PermittableGroups {
   static final String METHOD_FIELD = "method";
   static final String SOURCE_GROUP_ID_FIELD = "source_group_id";
 
+  private static final RegularStatement SELECT_ALL = QueryBuilder.select().all().from(TABLE_NAME);
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
   private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
 
   @Autowired
   PermittableGroups(
           final CassandraSessionProvider cassandraSessionProvider,
           final TenantAwareEntityTemplate tenantAwareEntityTemplate,
-          final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider) {
+          final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider,
+          final PreparedStatements preparedStatements) {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
     this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
   }
 
   public void buildTable() {
@@ -99,11 +103,8 @@ public class PermittableGroups {
   }
 
   public List<PermittableGroupEntity> getAll() {
-    final Session tenantSession = cassandraSessionProvider.getTenantSession();
     final Mapper<PermittableGroupEntity> entityMapper = tenantAwareCassandraMapperProvider.getMapper(PermittableGroupEntity.class);
 
-    final Statement statement = QueryBuilder.select().all().from(TABLE_NAME);
-
-    return new ArrayList<>(entityMapper.map(tenantSession.execute(statement)).all());
+    return new ArrayList<>(entityMapper.map(preparedStatements.execute(SELECT_ALL)).all());
   }
 }
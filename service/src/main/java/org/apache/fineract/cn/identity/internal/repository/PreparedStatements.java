@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prepares each statement once per tenant session, the first time it is used, and binds it on every later use.
+ * Statements are defined once by the repositories, with bind markers for their values, and are identified by their
+ * query string.  A statement on a table which does not exist yet fails to prepare and is prepared again on next use,
+ * so statements can be used as soon as the tenant has been provisioned.
+ *
+ * Sessions are held weakly, so that closing a tenant's session also drops its statements.
+ */
+@Component
+public class PreparedStatements {
+  private final CassandraSessionProvider cassandraSessionProvider;
+  private final Cache<Session, ConcurrentMap<String, PreparedStatement>> statementsBySession
+      = CacheBuilder.newBuilder().weakKeys().build();
+
+  @Autowired
+  PreparedStatements(final CassandraSessionProvider cassandraSessionProvider) {
+    this.cassandraSessionProvider = cassandraSessionProvider;
+  }
+
+  public BoundStatement bind(final RegularStatement statement, final Object... values) {
+    return get(cassandraSessionProvider.getTenantSession(), statement).bind(values);
+  }
+
+  public ResultSet execute(final RegularStatement statement, final Object... values) {
+    final Session session = cassandraSessionProvider.getTenantSession();
+    return session.execute(get(session, statement).bind(values));
+  }
+
+  private PreparedStatement get(final Session session, final RegularStatement statement) {
+    final ConcurrentMap<String, PreparedStatement> statements;
+    try {
+      statements = statementsBySession.get(session, ConcurrentHashMap::new);
+    }
+    catch (final ExecutionException | UncheckedExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+
+    return statements.computeIfAbsent(statement.getQueryString(), x -> session.prepare(statement));
+  }
+}
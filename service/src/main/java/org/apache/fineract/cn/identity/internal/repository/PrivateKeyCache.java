@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import java.security.PrivateKey;
+import java.util.Arrays;
+import java.util.Collection;
+import org.apache.fineract.cn.identity.internal.util.TenantScopedCache;
+import org.apache.fineract.cn.lang.security.RsaPrivateKeyBuilder;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decoded signing keys per tenant and key timestamp.  The key material for a key timestamp never changes, so entries
+ * are only dropped when a signature is added or invalidated.
+ */
+@Component
+public class PrivateKeyCache implements PublicMetrics {
+  private static final long MAXIMUM_KEYS_PER_TENANT = 16;
+  private static final long EXPIRE_AFTER_WRITE_SECONDS = 24 * 60 * 60;
+
+  private final TenantScopedCache<String, PrivateKey> cache
+      = new TenantScopedCache<>(MAXIMUM_KEYS_PER_TENANT, EXPIRE_AFTER_WRITE_SECONDS);
+
+  public PrivateKey get(final PrivateSignatureEntity privateSignatureEntity) {
+    return cache.get(privateSignatureEntity.getKeyTimestamp(), () -> new RsaPrivateKeyBuilder()
+        .setPrivateKeyExp(privateSignatureEntity.getPrivateKeyExp())
+        .setPrivateKeyMod(privateSignatureEntity.getPrivateKeyMod())
+        .build());
+  }
+
+  void invalidate(final String keyTimestamp) {
+    cache.invalidate(keyTimestamp);
+  }
+
+  void invalidateAll() {
+    cache.invalidateTenant();
+  }
+
+  public long getHitCount() {
+    return cache.getHitCount();
+  }
+
+  public long getMissCount() {
+    return cache.getMissCount();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.cache.privateKeys.hits", getHitCount()),
+        new Metric<>("identity.cache.privateKeys.misses", getMissCount()));
+  }
+}
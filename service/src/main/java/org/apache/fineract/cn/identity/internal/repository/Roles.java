@@ -19,8 +19,7 @@
 package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.Session;
-import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.RegularStatement;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
@@ -45,18 +44,23 @@ public class Roles {
   static final String IDENTIFIER_COLUMN = "identifier";
   static final String PERMISSIONS_COLUMN = "permissions";
 
+  private static final RegularStatement SELECT_ALL = QueryBuilder.select().all().from(TABLE_NAME);
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
   private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
 
   @Autowired
   Roles(
           final CassandraSessionProvider cassandraSessionProvider,
           final TenantAwareEntityTemplate tenantAwareEntityTemplate,
-          final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider) {
+          final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider,
+          final PreparedStatements preparedStatements) {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
     this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
   }
 
   public void buildTable() {
@@ -96,11 +100,8 @@ public class Roles {
 
   public List<RoleEntity> getAll()
   {
-    final Session tenantSession = cassandraSessionProvider.getTenantSession();
     final Mapper<RoleEntity> entityMapper = tenantAwareCassandraMapperProvider.getMapper(RoleEntity.class);
 
-    final Statement statement = QueryBuilder.select().all().from(TABLE_NAME);
-
-    return new ArrayList<>(entityMapper.map(tenantSession.execute(statement)).all());
+    return new ArrayList<>(entityMapper.map(preparedStatements.execute(SELECT_ALL)).all());
   }
 }
@@ -18,26 +18,36 @@
  */
 package org.apache.fineract.cn.identity.internal.repository;
 
-import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Row;
 import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.datastax.driver.core.querybuilder.Insert;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.datastax.driver.core.querybuilder.Select;
-import com.datastax.driver.core.querybuilder.Update;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 import com.datastax.driver.core.schemabuilder.SchemaStatement;
-import com.datastax.driver.mapping.Mapper;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
-import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
 import org.apache.fineract.cn.lang.security.RsaKeyPairFactory;
+import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 /**
@@ -48,72 +58,168 @@ import org.springframework.stereotype.Component;
  * All calls to cassandra which could conceivably be performed before provisioning is complete are surrounded by
  * a try-catch block for an InvalidQueryException.  If provisioning is not completed, the table is treated as empty.
  *
+ * The signatures of a tenant are stored in a single partition of isis_signature_keys, clustered by key timestamp in
+ * descending order, so that the valid key timestamps and the most recent valid key are read from one replica set in
+ * one query.  The tenant's signatures were previously stored in isis_signatures, one partition per key, and the valid
+ * keys were found via a secondary index on the valid column.  A tenant whose key set is empty is migrated from that
+ * table the first time its signatures are read.
+ *
+ * identity.signatures.legacyTable.enabled is off by default.  It is only needed during a rolling upgrade from a
+ * release which knows only isis_signatures (see the README).  While it is set, writes also go to the old table, so that
+ * instances which have not been upgraded yet keep working, and keys which those instances add to or invalidate in the
+ * old table are merged into the key set whenever it is reconciled or a key is not found.  The merge scans the old
+ * table, so the setting should be unset as soon as the upgrade is done.  While it is unset, provisioning drops the
+ * old index.
+ *
+ * The valid key timestamps and the current private signature are held in memory per tenant, so that authentication
+ * does not have to query for them.  They are reloaded whenever this instance adds or invalidates a signature, and
+ * periodically reconciled with cassandra to pick up key rotations performed by other instances.  Tenants without a
+ * valid signature are not held, so that provisioning on another instance is seen immediately.  Signatures are read
+ * before they are published to the map, never inside a map update, and reloads are serialized on this object's
+ * monitor, so that a reload cannot publish a key set older than that of the reload before it.
+ *
  * @author Myrle Krantz
  */
 @Component
 public class Signatures {
   static final String TABLE_NAME = "isis_signatures";
   private static final String INDEX_NAME = "isis_signatures_valid_index";
+  static final String KEY_SET_TABLE_NAME = "isis_signature_keys";
+  static final String KEY_SET_COLUMN = "key_set";
   static final String KEY_TIMESTAMP_COLUMN = "key_timestamp";
   static final String VALID_COLUMN = "valid";
   static final String PRIVATE_KEY_MOD_COLUMN = "private_key_mod";
   static final String PRIVATE_KEY_EXP_COLUMN = "private_key_exp";
   static final String PUBLIC_KEY_MOD_COLUMN = "public_key_mod";
   static final String PUBLIC_KEY_EXP_COLUMN = "public_key_exp";
+  //Each tenant has its own keyspace, so there is exactly one key set per table.
+  static final String KEY_SET = "tenant";
+
+  private static final RegularStatement INSERT_KEY = insertKey();
+  private static final RegularStatement MIGRATE_KEY = insertKey().ifNotExists();
+  private static final RegularStatement SELECT_KEY_SET = QueryBuilder.select().all()
+      .from(KEY_SET_TABLE_NAME)
+      .where(QueryBuilder.eq(KEY_SET_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement SELECT_KEY = QueryBuilder.select().all()
+      .from(KEY_SET_TABLE_NAME)
+      .where(QueryBuilder.eq(KEY_SET_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(KEY_TIMESTAMP_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement INVALIDATE_KEY = QueryBuilder.update(KEY_SET_TABLE_NAME)
+      .with(QueryBuilder.set(VALID_COLUMN, false))
+      .where(QueryBuilder.eq(KEY_SET_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(KEY_TIMESTAMP_COLUMN, QueryBuilder.bindMarker()));
+
+  private static final RegularStatement LEGACY_INSERT = QueryBuilder.insertInto(TABLE_NAME)
+      .value(KEY_TIMESTAMP_COLUMN, QueryBuilder.bindMarker())
+      .value(VALID_COLUMN, QueryBuilder.bindMarker())
+      .value(PRIVATE_KEY_MOD_COLUMN, QueryBuilder.bindMarker())
+      .value(PRIVATE_KEY_EXP_COLUMN, QueryBuilder.bindMarker())
+      .value(PUBLIC_KEY_MOD_COLUMN, QueryBuilder.bindMarker())
+      .value(PUBLIC_KEY_EXP_COLUMN, QueryBuilder.bindMarker());
+  private static final RegularStatement LEGACY_SELECT_ALL = QueryBuilder.select().all().from(TABLE_NAME);
+  private static final RegularStatement LEGACY_INVALIDATE = QueryBuilder.update(TABLE_NAME)
+      .with(QueryBuilder.set(VALID_COLUMN, false))
+      .where(QueryBuilder.eq(KEY_TIMESTAMP_COLUMN, QueryBuilder.bindMarker()));
 
   private final CassandraSessionProvider cassandraSessionProvider;
-  private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
+  private final PrivateKeyCache privateKeyCache;
+  private final Logger logger;
+  private final long reconcileIntervalSeconds;
+  private final boolean legacyTableEnabled;
+  private final ConcurrentMap<String, ValidSignatures> validSignaturesByTenant = new ConcurrentHashMap<>();
+  private ScheduledExecutorService reconciler;
 
   @Autowired
   public Signatures(
           final CassandraSessionProvider cassandraSessionProvider,
-          final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider) {
+          final PreparedStatements preparedStatements,
+          final PrivateKeyCache privateKeyCache,
+          @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+          @Value("${identity.signatures.reconcileIntervalSeconds:60}") final long reconcileIntervalSeconds,
+          @Value("${identity.signatures.legacyTable.enabled:false}") final boolean legacyTableEnabled) {
     this.cassandraSessionProvider = cassandraSessionProvider;
-    this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
+    this.privateKeyCache = privateKeyCache;
+    this.logger = logger;
+    this.reconcileIntervalSeconds = reconcileIntervalSeconds;
+    this.legacyTableEnabled = legacyTableEnabled;
+  }
+
+  @PostConstruct
+  public void startReconciling() {
+    reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "identity-signature-reconciler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reconciler.scheduleWithFixedDelay(this::reconcile,
+        reconcileIntervalSeconds, reconcileIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopReconciling() {
+    reconciler.shutdownNow();
   }
 
   public synchronized void buildTable() {
-    final Create create = SchemaBuilder.createTable(TABLE_NAME)
+    buildKeySetTable();
+
+    if (legacyTableEnabled) {
+      final Create create = SchemaBuilder.createTable(TABLE_NAME)
+          .ifNotExists()
+          .addPartitionKey(KEY_TIMESTAMP_COLUMN, DataType.text())
+          .addColumn(VALID_COLUMN, DataType.cboolean())
+          .addColumn(PRIVATE_KEY_MOD_COLUMN, DataType.varint())
+          .addColumn(PRIVATE_KEY_EXP_COLUMN, DataType.varint())
+          .addColumn(PUBLIC_KEY_MOD_COLUMN, DataType.varint())
+          .addColumn(PUBLIC_KEY_EXP_COLUMN, DataType.varint());
+
+      cassandraSessionProvider.getTenantSession().execute(create);
+
+      final SchemaStatement createValidIndex = SchemaBuilder.createIndex(INDEX_NAME)
+          .ifNotExists()
+          .onTable(TABLE_NAME)
+          .andColumn(VALID_COLUMN);
+
+      cassandraSessionProvider.getTenantSession().execute(createValidIndex);
+    }
+    else {
+      //Instances which query the old index are expected to be gone once the old table is disabled.
+      cassandraSessionProvider.getTenantSession().execute("DROP INDEX IF EXISTS " + INDEX_NAME);
+    }
+  }
+
+  private void buildKeySetTable() {
+    final SchemaStatement create = SchemaBuilder.createTable(KEY_SET_TABLE_NAME)
         .ifNotExists()
-        .addPartitionKey(KEY_TIMESTAMP_COLUMN, DataType.text())
+        .addPartitionKey(KEY_SET_COLUMN, DataType.text())
+        .addClusteringColumn(KEY_TIMESTAMP_COLUMN, DataType.text())
         .addColumn(VALID_COLUMN, DataType.cboolean())
         .addColumn(PRIVATE_KEY_MOD_COLUMN, DataType.varint())
         .addColumn(PRIVATE_KEY_EXP_COLUMN, DataType.varint())
         .addColumn(PUBLIC_KEY_MOD_COLUMN, DataType.varint())
-        .addColumn(PUBLIC_KEY_EXP_COLUMN, DataType.varint());
+        .addColumn(PUBLIC_KEY_EXP_COLUMN, DataType.varint())
+        .withOptions()
+        .clusteringOrder(KEY_TIMESTAMP_COLUMN, SchemaBuilder.Direction.DESC);
 
     cassandraSessionProvider.getTenantSession().execute(create);
-
-    final SchemaStatement createValidIndex = SchemaBuilder.createIndex(INDEX_NAME)
-        .ifNotExists()
-        .onTable(TABLE_NAME)
-        .andColumn(VALID_COLUMN);
-
-    cassandraSessionProvider.getTenantSession().execute(createValidIndex);
   }
 
   public synchronized SignatureEntity add(final RsaKeyPairFactory.KeyPairHolder keys)
   {
-    //There will only be one entry in this table.
-    final BoundStatement tenantCreationStatement =
-            cassandraSessionProvider.getTenantSession().prepare("INSERT INTO " + TABLE_NAME + " ("
-                    + KEY_TIMESTAMP_COLUMN + ", "
-                    + VALID_COLUMN + ", "
-                    + PRIVATE_KEY_MOD_COLUMN + ", "
-                    + PRIVATE_KEY_EXP_COLUMN + ", "
-                    + PUBLIC_KEY_MOD_COLUMN + ", "
-                    + PUBLIC_KEY_EXP_COLUMN + ")"
-                    + "VALUES (?, ?, ?, ?, ?, ?)").bind();
-
-    tenantCreationStatement.setString(KEY_TIMESTAMP_COLUMN, keys.getTimestamp());
-
-    tenantCreationStatement.setBool(VALID_COLUMN, true);
-    tenantCreationStatement.setVarint(PRIVATE_KEY_MOD_COLUMN, keys.getPrivateKeyMod());
-    tenantCreationStatement.setVarint(PRIVATE_KEY_EXP_COLUMN, keys.getPrivateKeyExp());
-    tenantCreationStatement.setVarint(PUBLIC_KEY_MOD_COLUMN, keys.getPublicKeyMod());
-    tenantCreationStatement.setVarint(PUBLIC_KEY_EXP_COLUMN, keys.getPublicKeyExp());
-
-    cassandraSessionProvider.getTenantSession().execute(tenantCreationStatement);
+    //Migrate first, so that the new key does not hide the keys which are still only in the old table.
+    readKeySet();
+    buildKeySetTable();
+
+    preparedStatements.execute(INSERT_KEY, KEY_SET, keys.getTimestamp(), true,
+        keys.getPrivateKeyMod(), keys.getPrivateKeyExp(), keys.getPublicKeyMod(), keys.getPublicKeyExp());
+    if (legacyTableEnabled)
+      preparedStatements.execute(LEGACY_INSERT, keys.getTimestamp(), true,
+          keys.getPrivateKeyMod(), keys.getPrivateKeyExp(), keys.getPublicKeyMod(), keys.getPublicKeyExp());
+
+    privateKeyCache.invalidateAll();
+    reloadValidSignatures();
 
     final SignatureEntity ret = new SignatureEntity();
     ret.setKeyTimestamp(keys.getTimestamp());
@@ -125,16 +231,9 @@ public class Signatures {
   }
 
   public Optional<SignatureEntity> getSignature(final String keyTimestamp) {
-    try {
-      final Mapper<SignatureEntity> signatureEntityMapper
-          = tenantAwareCassandraMapperProvider.getMapper(SignatureEntity.class);
-
-      final Optional<SignatureEntity> ret = Optional.ofNullable(signatureEntityMapper.get(keyTimestamp));
-      return ret.filter(SignatureEntity::getValid);
-    }
-    catch (final InvalidQueryException e) {
-      return Optional.empty();
-    }
+    return readKey(keyTimestamp)
+        .filter(x -> x.getBool(VALID_COLUMN))
+        .map(Signatures::signatureEntity);
   }
 
   /**
@@ -142,44 +241,197 @@ public class Signatures {
    */
   public Optional<PrivateSignatureEntity> getPrivateSignature()
   {
-    final Optional<String> maximumKeyTimestamp = streamValidKeyTimestamps().max(String::compareTo);
+    return getValidSignatures().getPrivateSignature();
+  }
 
-    return maximumKeyTimestamp.flatMap(this::getPrivateSignatureEntity);
+  public List<String> getAllKeyTimestamps() {
+      return getValidSignatures().getKeyTimestamps();
   }
 
-  private Optional<PrivateSignatureEntity> getPrivateSignatureEntity(final String keyTimestamp) {
-    try {
-      final Mapper<PrivateSignatureEntity> privateSignatureEntityMapper
-          = tenantAwareCassandraMapperProvider.getMapper(PrivateSignatureEntity.class);
+  private ValidSignatures getValidSignatures() {
+    final Optional<String> tenant = TenantContextHolder.identifier();
+    if (!tenant.isPresent())
+      return loadValidSignatures();
+
+    final ValidSignatures held = validSignaturesByTenant.get(tenant.get());
+    if (held != null)
+      return held;
+
+    final ValidSignatures loaded = loadValidSignatures();
+    if (loaded.isEmpty())
+      return loaded;
+
+    //A reload which finished in the meantime has read a newer key set.
+    final ValidSignatures reloaded = validSignaturesByTenant.putIfAbsent(tenant.get(), loaded);
+    return reloaded != null ? reloaded : loaded;
+  }
+
+  private synchronized void reloadValidSignatures() {
+    TenantContextHolder.identifier().ifPresent(tenant -> {
+      final ValidSignatures loaded = loadValidSignatures();
+      if (loaded.isEmpty())
+        validSignaturesByTenant.remove(tenant);
+      else
+        validSignaturesByTenant.put(tenant, loaded);
+    });
+  }
+
+  private ValidSignatures loadValidSignatures() {
+    //The key set is read newest first.
+    final List<Row> validKeys = readKeySet().stream()
+        .filter(x -> x.getBool(VALID_COLUMN))
+        .collect(Collectors.toList());
+    if (validKeys.isEmpty())
+      return new ValidSignatures(Collections.emptyList(), null);
 
-      final Optional<PrivateSignatureEntity> ret = Optional.ofNullable(privateSignatureEntityMapper.get(keyTimestamp));
-      return ret.filter(PrivateSignatureEntity::getValid);
+    final List<String> keyTimestamps = validKeys.stream()
+        .map(x -> x.getString(KEY_TIMESTAMP_COLUMN))
+        .collect(Collectors.toCollection(ArrayList::new));
+    Collections.reverse(keyTimestamps);
+    return new ValidSignatures(keyTimestamps, privateSignatureEntity(validKeys.get(0)));
+  }
+
+  private void reconcile() {
+    for (final String tenant : validSignaturesByTenant.keySet()) {
+      TenantContextHolder.setIdentifier(tenant);
+      try {
+        reloadValidSignatures();
+      }
+      catch (final RuntimeException e) {
+        logger.warn("Failed to reconcile signatures for tenant '{}'.", tenant, e);
+      }
+      finally {
+        TenantContextHolder.clear();
+      }
+    }
+  }
+
+  private Optional<Row> readKey(final String keyTimestamp) {
+    try {
+      final Row row = preparedStatements.execute(SELECT_KEY, KEY_SET, keyTimestamp).one();
+      if (row != null)
+        return Optional.of(row);
     }
     catch (final InvalidQueryException e) {
-      return Optional.empty();
+      //The key set table does not exist yet.  Reading the key set migrates it if there is anything to migrate.
     }
+
+    //The key may have been added by an instance which only writes the old table.  Reading the key set merges it.
+    return readKeySet().stream().filter(x -> keyTimestamp.equals(x.getString(KEY_TIMESTAMP_COLUMN))).findAny();
   }
 
-  public List<String> getAllKeyTimestamps() {
-      return streamValidKeyTimestamps().collect(Collectors.toList());
+  /**
+   * @return all of the tenant's keys, valid or not, newest first.
+   */
+  private List<Row> readKeySet() {
+    final List<Row> rows = readKeySetTable();
+    if (!legacyTableEnabled && !rows.isEmpty())
+      return rows;
+
+    if (!mergeLegacyTable(rows))
+      return rows;
+
+    return preparedStatements.execute(SELECT_KEY_SET, KEY_SET).all();
   }
 
-  private Stream<String> streamValidKeyTimestamps() {
+  private List<Row> readKeySetTable() {
     try {
-      final Select.Where selectValid = QueryBuilder.select(KEY_TIMESTAMP_COLUMN)
-          .from(TABLE_NAME)
-          .where(QueryBuilder.eq(VALID_COLUMN, true));
-      final ResultSet result = cassandraSessionProvider.getTenantSession().execute(selectValid);
-      return StreamSupport.stream(result.spliterator(), false)
-          .map(x -> x.get(KEY_TIMESTAMP_COLUMN, String.class));
+      return preparedStatements.execute(SELECT_KEY_SET, KEY_SET).all();
     }
     catch (final InvalidQueryException e) {
-      return Stream.empty();
+      //The key set table does not exist yet.  It is created if there is anything to migrate.
+      return Collections.emptyList();
     }
   }
 
+  /**
+   * Merges the signatures from isis_signatures into the key set.  Keys which are missing from the key set are copied.
+   * Copies do not overwrite keys which were added to the key set in the meantime, since those may have been
+   * invalidated since.  Keys which are invalid in the old table are invalidated in the key set.  Keys only ever go from
+   * valid to invalid, so neither step can undo a change made through the key set.
+   *
+   * @param keySet the rows of the key set, as read before the merge.
+   * @return true if the key set was changed.
+   */
+  private synchronized boolean mergeLegacyTable(final List<Row> keySet) {
+    final List<Row> legacyRows;
+    try {
+      legacyRows = preparedStatements.execute(LEGACY_SELECT_ALL).all();
+    }
+    catch (final InvalidQueryException e) {
+      return false;
+    }
+
+    final Map<String, Boolean> validByKeyTimestamp = keySet.stream()
+        .collect(Collectors.toMap(x -> x.getString(KEY_TIMESTAMP_COLUMN), x -> x.getBool(VALID_COLUMN)));
+    final List<Row> missing = legacyRows.stream()
+        .filter(x -> !validByKeyTimestamp.containsKey(x.getString(KEY_TIMESTAMP_COLUMN)))
+        .collect(Collectors.toList());
+    final List<String> invalidated = legacyRows.stream()
+        .filter(x -> !x.getBool(VALID_COLUMN))
+        .map(x -> x.getString(KEY_TIMESTAMP_COLUMN))
+        .filter(x -> validByKeyTimestamp.getOrDefault(x, false))
+        .collect(Collectors.toList());
+    if (missing.isEmpty() && invalidated.isEmpty())
+      return false;
+
+    if (keySet.isEmpty())
+      buildKeySetTable();
+    for (final Row row : missing) {
+      preparedStatements.execute(MIGRATE_KEY, KEY_SET,
+          row.getString(KEY_TIMESTAMP_COLUMN),
+          row.getBool(VALID_COLUMN),
+          row.getVarint(PRIVATE_KEY_MOD_COLUMN),
+          row.getVarint(PRIVATE_KEY_EXP_COLUMN),
+          row.getVarint(PUBLIC_KEY_MOD_COLUMN),
+          row.getVarint(PUBLIC_KEY_EXP_COLUMN));
+    }
+    for (final String keyTimestamp : invalidated) {
+      preparedStatements.execute(INVALIDATE_KEY, KEY_SET, keyTimestamp);
+      privateKeyCache.invalidate(keyTimestamp);
+    }
+    logger.info("Merged {} signatures and {} invalidations of tenant '{}' from {} into {}.",
+        missing.size(), invalidated.size(), TenantContextHolder.identifier().orElse(""), TABLE_NAME,
+        KEY_SET_TABLE_NAME);
+    return true;
+  }
+
   public synchronized void invalidateEntry(final String keyTimestamp) {
-    final Update.Assignments updateQuery = QueryBuilder.update(TABLE_NAME).where(QueryBuilder.eq(KEY_TIMESTAMP_COLUMN, keyTimestamp)).with(QueryBuilder.set(VALID_COLUMN, false));
-    cassandraSessionProvider.getTenantSession().execute(updateQuery);
+    //Migrate first, so that the invalidation is not overwritten by the migration.
+    readKeySet();
+    preparedStatements.execute(INVALIDATE_KEY, KEY_SET, keyTimestamp);
+    if (legacyTableEnabled)
+      preparedStatements.execute(LEGACY_INVALIDATE, keyTimestamp);
+    privateKeyCache.invalidate(keyTimestamp);
+    reloadValidSignatures();
+  }
+
+  private static Insert insertKey() {
+    return QueryBuilder.insertInto(KEY_SET_TABLE_NAME)
+        .value(KEY_SET_COLUMN, QueryBuilder.bindMarker())
+        .value(KEY_TIMESTAMP_COLUMN, QueryBuilder.bindMarker())
+        .value(VALID_COLUMN, QueryBuilder.bindMarker())
+        .value(PRIVATE_KEY_MOD_COLUMN, QueryBuilder.bindMarker())
+        .value(PRIVATE_KEY_EXP_COLUMN, QueryBuilder.bindMarker())
+        .value(PUBLIC_KEY_MOD_COLUMN, QueryBuilder.bindMarker())
+        .value(PUBLIC_KEY_EXP_COLUMN, QueryBuilder.bindMarker());
+  }
+
+  private static SignatureEntity signatureEntity(final Row row) {
+    final SignatureEntity ret = new SignatureEntity();
+    ret.setKeyTimestamp(row.getString(KEY_TIMESTAMP_COLUMN));
+    ret.setValid(row.getBool(VALID_COLUMN));
+    ret.setPublicKeyMod(row.getVarint(PUBLIC_KEY_MOD_COLUMN));
+    ret.setPublicKeyExp(row.getVarint(PUBLIC_KEY_EXP_COLUMN));
+    return ret;
+  }
+
+  private static PrivateSignatureEntity privateSignatureEntity(final Row row) {
+    final PrivateSignatureEntity ret = new PrivateSignatureEntity();
+    ret.setKeyTimestamp(row.getString(KEY_TIMESTAMP_COLUMN));
+    ret.setValid(row.getBool(VALID_COLUMN));
+    ret.setPrivateKeyMod(row.getVarint(PRIVATE_KEY_MOD_COLUMN));
+    ret.setPrivateKeyExp(row.getVarint(PRIVATE_KEY_EXP_COLUMN));
+    return ret;
   }
 }
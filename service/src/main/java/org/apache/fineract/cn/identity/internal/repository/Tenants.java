@@ -20,17 +20,26 @@ package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
+ * The tenant info only changes during provisioning, so it is held in memory per tenant once read.  Callers always
+ * receive a copy, so the held snapshot cannot be changed through them.  Tenants which are not yet provisioned are not
+ * held.
+ *
  * @author Myrle Krantz
  */
 @Component
@@ -41,15 +50,25 @@ public class Tenants {
   static final String PASSWORD_EXPIRES_IN_DAYS_COLUMN = "password_expires_in_days";
   static final String TIME_TO_CHANGE_PASSWORD_AFTER_EXPIRATION_IN_DAYS = "time_to_change_password_after_expiration_in_days";
 
+  private static final RegularStatement INSERT = QueryBuilder.insertInto(TABLE_NAME)
+      .value(VERSION_COLUMN, QueryBuilder.bindMarker())
+      .value(FIXED_SALT_COLUMN, QueryBuilder.bindMarker())
+      .value(PASSWORD_EXPIRES_IN_DAYS_COLUMN, QueryBuilder.bindMarker())
+      .value(TIME_TO_CHANGE_PASSWORD_AFTER_EXPIRATION_IN_DAYS, QueryBuilder.bindMarker());
+
   private final CassandraSessionProvider cassandraSessionProvider;
   private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
+  private final PreparedStatements preparedStatements;
+  private final ConcurrentMap<String, PrivateTenantInfoEntity> snapshots = new ConcurrentHashMap<>();
 
   @Autowired
   Tenants(final CassandraSessionProvider cassandraSessionProvider,
-          final TenantAwareEntityTemplate tenantAwareEntityTemplate)
+          final TenantAwareEntityTemplate tenantAwareEntityTemplate,
+          final PreparedStatements preparedStatements)
   {
     this.cassandraSessionProvider = cassandraSessionProvider;
     this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
+    this.preparedStatements = preparedStatements;
   }
 
   public void buildTable() {
@@ -69,13 +88,7 @@ public class Tenants {
           final int timeToChangePasswordAfterExpirationInDays)
   {
     //There will only be one entry in this table.
-    final BoundStatement tenantCreationStatement =
-        cassandraSessionProvider.getTenantSession().prepare("INSERT INTO " + Tenants.TABLE_NAME + " ("
-            + VERSION_COLUMN + ", "
-            + FIXED_SALT_COLUMN + ", "
-            + PASSWORD_EXPIRES_IN_DAYS_COLUMN + ", "
-            + TIME_TO_CHANGE_PASSWORD_AFTER_EXPIRATION_IN_DAYS + ")"
-            + "VALUES (?, ?, ?, ?)").bind();
+    final BoundStatement tenantCreationStatement = preparedStatements.bind(INSERT);
 
     tenantCreationStatement.setInt(VERSION_COLUMN, IdentityConstants.CURRENT_VERSION);
 
@@ -85,11 +98,49 @@ public class Tenants {
 
 
     cassandraSessionProvider.getTenantSession().execute(tenantCreationStatement);
+
+    final PrivateTenantInfoEntity snapshot = new PrivateTenantInfoEntity();
+    snapshot.setVersion(IdentityConstants.CURRENT_VERSION);
+    snapshot.setFixedSalt(ByteBuffer.wrap(fixedSalt.clone()));
+    snapshot.setPasswordExpiresInDays(passwordExpiresInDays);
+    snapshot.setTimeToChangePasswordAfterExpirationInDays(timeToChangePasswordAfterExpirationInDays);
+    TenantContextHolder.identifier().ifPresent(tenant -> snapshots.put(tenant, snapshot));
   }
 
   public Optional<PrivateTenantInfoEntity> getPrivateTenantInfo()
   {
+    final Optional<String> tenant = TenantContextHolder.identifier();
+    if (!tenant.isPresent())
+      return findPrivateTenantInfo();
+
+    return Optional.ofNullable(snapshots.computeIfAbsent(tenant.get(), x -> findPrivateTenantInfo().orElse(null)))
+        .map(Tenants::copyOf);
+  }
+
+  public void invalidate() {
+    TenantContextHolder.identifier().ifPresent(snapshots::remove);
+  }
+
+  public Optional<PrivateTenantInfoEntity> reload() {
+    invalidate();
+    return getPrivateTenantInfo();
+  }
+
+  private Optional<PrivateTenantInfoEntity> findPrivateTenantInfo() {
     return tenantAwareEntityTemplate
         .findById(PrivateTenantInfoEntity.class, IdentityConstants.CURRENT_VERSION);
   }
+
+  private static PrivateTenantInfoEntity copyOf(final PrivateTenantInfoEntity snapshot) {
+    final ByteBuffer fixedSalt = snapshot.getFixedSalt().duplicate();
+    final byte[] fixedSaltBytes = new byte[fixedSalt.remaining()];
+    fixedSalt.get(fixedSaltBytes);
+
+    final PrivateTenantInfoEntity ret = new PrivateTenantInfoEntity();
+    ret.setVersion(snapshot.getVersion());
+    ret.setFixedSalt(ByteBuffer.wrap(fixedSaltBytes));
+    ret.setPasswordExpiresInDays(snapshot.getPasswordExpiresInDays());
+    ret.setTimeToChangePasswordAfterExpirationInDays(snapshot.getTimeToChangePasswordAfterExpirationInDays());
+    return ret;
+  }
 }
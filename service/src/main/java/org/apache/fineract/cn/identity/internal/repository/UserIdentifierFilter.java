@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * An optional Bloom filter of the user identifiers of each tenant.  Each instance of this service keeps its own
+ * filters, which only learn about users created by other instances when they are rebuilt.  A user who is not in the
+ * filter therefore only certainly does not exist if a single instance serves the tenants; only then should
+ * identity.users.bloomFilter.trustMisses be set, so that login attempts of unknown users are refused without reading
+ * the users table.  Otherwise the users table is read anyway, and misses are only counted.
+ *
+ * A tenant's filter is built in the background, paging through the users table, the first time the tenant is asked
+ * about.  Until it is built, every user might exist.  Users added in the meantime are recorded in the filter being
+ * built.  Filters are rebuilt periodically so that they pick up users created by other instances of this service and
+ * resize themselves as the number of users grows.
+ */
+@Component
+public class UserIdentifierFilter implements PublicMetrics {
+  private static final RegularStatement SELECT_IDENTIFIERS
+      = QueryBuilder.select(Users.IDENTIFIER_COLUMN).from(Users.TABLE_NAME);
+
+  private final CassandraSessionProvider cassandraSessionProvider;
+  private final PreparedStatements preparedStatements;
+  private final Logger logger;
+  private final boolean enabled;
+  private final int expectedInsertions;
+  private final double falsePositiveProbability;
+  private final int pageSize;
+  private final long rebuildIntervalSeconds;
+  private final boolean trustMisses;
+  private final ConcurrentMap<String, TenantFilter> filtersByTenant = new ConcurrentHashMap<>();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder builds = new LongAdder();
+  private ScheduledExecutorService builder;
+
+  @Autowired
+  UserIdentifierFilter(
+      final CassandraSessionProvider cassandraSessionProvider,
+      final PreparedStatements preparedStatements,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+      @Value("${identity.users.bloomFilter.enabled:false}") final boolean enabled,
+      @Value("${identity.users.bloomFilter.expectedInsertions:100000}") final int expectedInsertions,
+      @Value("${identity.users.bloomFilter.falsePositiveProbability:0.01}") final double falsePositiveProbability,
+      @Value("${identity.users.bloomFilter.pageSize:1000}") final int pageSize,
+      @Value("${identity.users.bloomFilter.rebuildIntervalSeconds:3600}") final long rebuildIntervalSeconds,
+      @Value("${identity.users.bloomFilter.trustMisses:false}") final boolean trustMisses) {
+    this.cassandraSessionProvider = cassandraSessionProvider;
+    this.preparedStatements = preparedStatements;
+    this.logger = logger;
+    this.enabled = enabled;
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveProbability = falsePositiveProbability;
+    this.pageSize = pageSize;
+    this.rebuildIntervalSeconds = rebuildIntervalSeconds;
+    this.trustMisses = trustMisses;
+  }
+
+  @PostConstruct
+  public void startBuilding() {
+    if (!enabled)
+      return;
+
+    builder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      final Thread thread = new Thread(runnable, "identity-user-filter-builder");
+      thread.setDaemon(true);
+      return thread;
+    });
+    builder.scheduleWithFixedDelay(this::rebuildAll,
+        rebuildIntervalSeconds, rebuildIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  public void stopBuilding() {
+    if (builder != null)
+      builder.shutdownNow();
+  }
+
+  /**
+   * @return false only if the user certainly does not exist in the current tenant, which requires misses to be
+   * trusted.
+   */
+  public boolean mightExist(final String userIdentifier) {
+    if (!enabled)
+      return true;
+
+    final boolean inFilter = TenantContextHolder.identifier()
+        .map(tenant -> filtersByTenant.computeIfAbsent(tenant, this::scheduleInitialBuild))
+        .map(filter -> filter.mightContain(userIdentifier))
+        .orElse(true);
+    if (inFilter)
+      return true;
+
+    misses.increment();
+    return !trustMisses;
+  }
+
+  void add(final String userIdentifier) {
+    if (!enabled)
+      return;
+
+    TenantContextHolder.identifier()
+        .map(filtersByTenant::get)
+        .ifPresent(filter -> filter.put(userIdentifier));
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.users.bloomFilter.misses", misses.sum()),
+        new Metric<>("identity.users.bloomFilter.builds", builds.sum()),
+        new Metric<>("identity.users.bloomFilter.tenants", filtersByTenant.size()));
+  }
+
+  private TenantFilter scheduleInitialBuild(final String tenant) {
+    final TenantFilter ret = new TenantFilter();
+    builder.execute(() -> build(tenant, ret));
+    return ret;
+  }
+
+  private void rebuildAll() {
+    filtersByTenant.forEach(this::build);
+  }
+
+  private void build(final String tenant, final TenantFilter filter) {
+    TenantContextHolder.setIdentifier(tenant);
+    try {
+      final BloomFilter<CharSequence> next = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8),
+          Math.max(expectedInsertions, 2 * filter.getLastCount()), falsePositiveProbability);
+      filter.startBuilding(next);
+
+      final Statement selectIdentifiers = preparedStatements.bind(SELECT_IDENTIFIERS).setFetchSize(pageSize);
+      final ResultSet result = cassandraSessionProvider.getTenantSession().execute(selectIdentifiers);
+      int count = 0;
+      for (final Row row : result) {
+        filter.putWhileBuilding(row.getString(Users.IDENTIFIER_COLUMN));
+        count++;
+      }
+
+      filter.finishBuilding(count);
+      builds.increment();
+    }
+    catch (final RuntimeException e) {
+      filter.abandonBuilding();
+      logger.warn("Failed to build the user identifier filter for tenant '{}'.", tenant, e);
+    }
+    finally {
+      TenantContextHolder.clear();
+    }
+  }
+
+  /**
+   * Guava's Bloom filters are not safe for concurrent writes, so all access goes through the monitor.
+   */
+  private static class TenantFilter {
+    private BloomFilter<CharSequence> current;
+    private BloomFilter<CharSequence> building;
+    private int lastCount;
+
+    synchronized boolean mightContain(final String userIdentifier) {
+      return current == null || current.mightContain(userIdentifier);
+    }
+
+    synchronized void put(final String userIdentifier) {
+      if (current != null)
+        current.put(userIdentifier);
+      if (building != null)
+        building.put(userIdentifier);
+    }
+
+    synchronized void putWhileBuilding(final String userIdentifier) {
+      if (building != null)
+        building.put(userIdentifier);
+    }
+
+    synchronized void startBuilding(final BloomFilter<CharSequence> next) {
+      building = next;
+    }
+
+    synchronized void finishBuilding(final int count) {
+      current = building;
+      building = null;
+      lastCount = count;
+    }
+
+    synchronized void abandonBuilding() {
+      building = null;
+    }
+
+    synchronized int getLastCount() {
+      return lastCount;
+    }
+  }
+}
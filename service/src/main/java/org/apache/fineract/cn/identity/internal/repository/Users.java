@@ -19,21 +19,28 @@
 package org.apache.fineract.cn.identity.internal.repository;
 
 import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.Session;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.PagingStateException;
 import com.datastax.driver.core.querybuilder.QueryBuilder;
 import com.datastax.driver.core.schemabuilder.Create;
 import com.datastax.driver.core.schemabuilder.SchemaBuilder;
 import com.datastax.driver.mapping.Mapper;
+import com.datastax.driver.mapping.Result;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
 import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
 import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
-import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Myrle Krantz
@@ -50,18 +57,44 @@ public class Users {
   static final String SALT_COLUMN = "salt";
   static final String ITERATION_COUNT_COLUMN = "iteration_count";
 
+  private static final RegularStatement SELECT_ALL = QueryBuilder.select().all().from(TABLE_NAME);
+  private static final RegularStatement SELECT_ALL_LIMITED = QueryBuilder.select().all().from(TABLE_NAME)
+      .limit(QueryBuilder.bindMarker());
+  private static final RegularStatement UPDATE_HASH_IF_UNCHANGED = QueryBuilder.update(TABLE_NAME)
+      .with(QueryBuilder.set(PASSWORD_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.set(SALT_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.set(ITERATION_COUNT_COLUMN, QueryBuilder.bindMarker()))
+      .where(QueryBuilder.eq(IDENTIFIER_COLUMN, QueryBuilder.bindMarker()))
+      .onlyIf(QueryBuilder.eq(PASSWORD_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(SALT_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement UPDATE_PASSWORD = QueryBuilder.update(TABLE_NAME)
+      .with(QueryBuilder.set(PASSWORD_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.set(SALT_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.set(ITERATION_COUNT_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.set(PASSWORD_EXPIRES_ON_COLUMN, QueryBuilder.bindMarker()))
+      .where(QueryBuilder.eq(IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement UPDATE_ROLE = QueryBuilder.update(TABLE_NAME)
+      .with(QueryBuilder.set(ROLE_COLUMN, QueryBuilder.bindMarker()))
+      .where(QueryBuilder.eq(IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+
   private final CassandraSessionProvider cassandraSessionProvider;
-  private final TenantAwareEntityTemplate tenantAwareEntityTemplate;
   private final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider;
+  private final PreparedStatements preparedStatements;
+  private final UserIdentifierFilter userIdentifierFilter;
+  private final UsersByRole usersByRole;
 
   @Autowired
   Users(final CassandraSessionProvider cassandraSessionProvider,
-      final TenantAwareEntityTemplate tenantAwareEntityTemplate,
-      final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider)
+      final TenantAwareCassandraMapperProvider tenantAwareCassandraMapperProvider,
+      final PreparedStatements preparedStatements,
+      final UserIdentifierFilter userIdentifierFilter,
+      final UsersByRole usersByRole)
   {
     this.cassandraSessionProvider = cassandraSessionProvider;
-    this.tenantAwareEntityTemplate = tenantAwareEntityTemplate;
     this.tenantAwareCassandraMapperProvider = tenantAwareCassandraMapperProvider;
+    this.preparedStatements = preparedStatements;
+    this.userIdentifierFilter = userIdentifierFilter;
+    this.usersByRole = usersByRole;
   }
 
   public void buildTable() {
@@ -76,10 +109,81 @@ public class Users {
         .addColumn(ID_COLUMN, DataType.text());
 
     cassandraSessionProvider.getTenantSession().execute(create);
+
+    usersByRole.buildTable();
   }
 
+  /**
+   * Writes the whole user, and indexes the user under its role in the same logged batch.  Only for users which are
+   * created or reset as a whole; use {@link #changePassword} and {@link #changeRole} for changes to existing users.
+   */
   public void add(final UserEntity instance) {
-    tenantAwareEntityTemplate.save(instance);
+    cassandraSessionProvider.getTenantSession().execute(usersByRole.withAdd(
+        tenantAwareCassandraMapperProvider.getMapper(UserEntity.class).saveQuery(instance),
+        instance.getRole(), instance.getIdentifier()));
+    userIdentifierFilter.add(instance.getIdentifier());
+  }
+
+  /**
+   * Writes only the password hash, salt, iteration count and expiry of the user.  The role is neither written nor
+   * re-indexed, so a concurrent role change is kept.
+   */
+  public void changePassword(final UserEntity instance) {
+    preparedStatements.execute(UPDATE_PASSWORD,
+        instance.getPassword(), instance.getSalt(), instance.getIterationCount(), instance.getPasswordExpiresOn(),
+        instance.getIdentifier());
+  }
+
+  /**
+   * Writes only the password hash, salt and iteration count of the rehashed user, and only if the password hash and
+   * salt are still those of the previously read user.  A concurrent password change, role change or expiry update is
+   * therefore never overwritten.
+   *
+   * @return false if the password was changed since the previous user was read, and nothing was written.
+   */
+  public boolean replaceHashIfUnchanged(final UserEntity previous, final UserEntity rehashed) {
+    return preparedStatements.execute(UPDATE_HASH_IF_UNCHANGED,
+        rehashed.getPassword(), rehashed.getSalt(), rehashed.getIterationCount(),
+        previous.getIdentifier(), previous.getPassword(), previous.getSalt()).wasApplied();
+  }
+
+  /**
+   * Gives the user another role, and moves the user to that role in the users by role index.  Only the role is
+   * written, in the same logged batch as the index change.
+   */
+  public void changeRole(final UserEntity instance, final String roleIdentifier) {
+    final String previousRoleIdentifier = instance.getRole();
+    instance.setRole(roleIdentifier);
+    cassandraSessionProvider.getTenantSession().execute(usersByRole.withMove(
+        preparedStatements.bind(UPDATE_ROLE, roleIdentifier, instance.getIdentifier()),
+        instance.getIdentifier(), previousRoleIdentifier, roleIdentifier));
+  }
+
+  /**
+   * Starts writing the user without waiting for the write to finish, so that many users can be written concurrently.
+   * The user and its index row are written in one logged batch, as by {@link #add}.  The identifier is added to the
+   * user identifier filter right away; if the write fails, that only costs a read.
+   */
+  public CompletableFuture<Void> addAsync(final UserEntity instance) {
+    userIdentifierFilter.add(instance.getIdentifier());
+
+    final CompletableFuture<Void> ret = new CompletableFuture<>();
+    Futures.addCallback(
+        cassandraSessionProvider.getTenantSession().executeAsync(usersByRole.withAdd(
+            tenantAwareCassandraMapperProvider.getMapper(UserEntity.class).saveQuery(instance),
+            instance.getRole(), instance.getIdentifier())),
+        new FutureCallback<ResultSet>() {
+          @Override
+          public void onSuccess(final ResultSet result) {
+            ret.complete(null);
+          }
+
+          @Override
+          public void onFailure(final Throwable t) {
+            ret.completeExceptionally(t);
+          }
+        });
+    return ret;
   }
 
 
@@ -88,6 +192,37 @@ public class Users {
     final UserEntity instance =
         tenantAwareCassandraMapperProvider.getMapper(UserEntity.class).get(identifier);
 
+    return checked(instance);
+  }
+
+  /**
+   * Starts reading the user without waiting for the result, so that the caller can do other work in the meantime.
+   */
+  public CompletableFuture<Optional<UserEntity>> getAsync(final String identifier)
+  {
+    final CompletableFuture<Optional<UserEntity>> ret = new CompletableFuture<>();
+    Futures.addCallback(
+        tenantAwareCassandraMapperProvider.getMapper(UserEntity.class).getAsync(identifier),
+        new FutureCallback<UserEntity>() {
+          @Override
+          public void onSuccess(final UserEntity instance) {
+            try {
+              ret.complete(checked(instance));
+            }
+            catch (final RuntimeException e) {
+              ret.completeExceptionally(e);
+            }
+          }
+
+          @Override
+          public void onFailure(final Throwable t) {
+            ret.completeExceptionally(t);
+          }
+        });
+    return ret;
+  }
+
+  private static Optional<UserEntity> checked(final UserEntity instance) {
     if (instance != null) {
       Assert.notNull(instance.getIdentifier());
       Assert.notNull(instance.getRole());
@@ -96,13 +231,57 @@ public class Users {
     return Optional.ofNullable(instance);
   }
 
-  public List<UserEntity> getAll()
+  /**
+   * Reads at most limit users.
+   */
+  public List<UserEntity> getAll(final int limit)
   {
     final Mapper<UserEntity> entityMapper = tenantAwareCassandraMapperProvider.getMapper(UserEntity.class);
-    final Session tenantSession = cassandraSessionProvider.getTenantSession();
 
-    final Statement statement = QueryBuilder.select().all().from(TABLE_NAME);
+    return entityMapper.map(preparedStatements.execute(SELECT_ALL_LIMITED, limit)).all();
+  }
+
+  /**
+   * Reads one page of users, in token order.  The page is read in a single fetch, and iterating it does not fetch
+   * further rows, so no more than pageSize users are held at a time.
+   *
+   * @param pageToken the next page token of the previous page, or empty for the first page.
+   * @throws PagingStateException if the page token was not issued for this query.
+   * @throws IllegalArgumentException if the page token cannot be decoded.
+   */
+  public Page getPage(final int pageSize, final Optional<String> pageToken)
+  {
+    final Statement select = preparedStatements.bind(SELECT_ALL).setFetchSize(pageSize);
+    if (pageToken.isPresent())
+      select.setPagingState(PagingState.fromString(pageToken.get()));
+
+    final ResultSet resultSet = cassandraSessionProvider.getTenantSession().execute(select);
+    final Optional<String> nextPageToken = Optional.ofNullable(resultSet.getExecutionInfo().getPagingState())
+        .map(PagingState::toString);
+    final int available = resultSet.getAvailableWithoutFetching();
+    final Result<UserEntity> result = tenantAwareCassandraMapperProvider.getMapper(UserEntity.class).map(resultSet);
 
-    return entityMapper.map(tenantSession.execute(statement)).all();
+    return new Page(() -> Iterators.limit(result.iterator(), available), nextPageToken);
+  }
+
+  public static class Page {
+    private final Iterable<UserEntity> entities;
+    private final Optional<String> nextPageToken;
+
+    private Page(final Iterable<UserEntity> entities, final Optional<String> nextPageToken) {
+      this.entities = entities;
+      this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * The users of this page.  Can only be iterated once.
+     */
+    public Iterable<UserEntity> getEntities() {
+      return entities;
+    }
+
+    public Optional<String> getNextPageToken() {
+      return nextPageToken;
+    }
   }
 }
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.PagingState;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.datastax.driver.core.exceptions.PagingStateException;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import com.datastax.driver.core.schemabuilder.Create;
+import com.datastax.driver.core.schemabuilder.SchemaBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * The users holding each role, one partition per role, so that the users of a role can be listed without reading all
+ * users.  Kept in step with isis_users by {@link Users}: the index rows are written in the same logged batch as the
+ * write of the user's role, so that either both are written or neither is.  Writes which do not change the role do not
+ * touch the index.
+ *
+ * Tenants provisioned before this table existed are backfilled from isis_users when they are re-provisioned, or when
+ * the users of a role are first read.  Until then, the user is written without its index rows; the backfill covers
+ * them.
+ * The backfill writes each row with the write time of the user's role, so that it cannot undo a role change made
+ * while it runs.
+ */
+@Component
+public class UsersByRole {
+  static final String TABLE_NAME = "isis_users_by_role";
+  static final String ROLE_IDENTIFIER_COLUMN = "role_identifier";
+  static final String USER_IDENTIFIER_COLUMN = "user_identifier";
+  private static final String ROLE_WRITE_TIME = "role_write_time";
+  private static final int BACKFILL_FETCH_SIZE = 1000;
+  private static final int BACKFILL_CONCURRENT_WRITES = 64;
+
+  private static final RegularStatement INSERT = QueryBuilder.insertInto(TABLE_NAME)
+      .value(ROLE_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .value(USER_IDENTIFIER_COLUMN, QueryBuilder.bindMarker());
+  private static final RegularStatement INSERT_AT_TIMESTAMP = QueryBuilder.insertInto(TABLE_NAME)
+      .value(ROLE_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .value(USER_IDENTIFIER_COLUMN, QueryBuilder.bindMarker())
+      .using(QueryBuilder.timestamp(QueryBuilder.bindMarker()));
+  private static final RegularStatement DELETE = QueryBuilder.delete().from(TABLE_NAME)
+      .where(QueryBuilder.eq(ROLE_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()))
+      .and(QueryBuilder.eq(USER_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement SELECT_FOR_ROLE = QueryBuilder.select(USER_IDENTIFIER_COLUMN)
+      .from(TABLE_NAME)
+      .where(QueryBuilder.eq(ROLE_IDENTIFIER_COLUMN, QueryBuilder.bindMarker()));
+  private static final RegularStatement SELECT_USER_ROLES = QueryBuilder.select()
+      .column(Users.IDENTIFIER_COLUMN)
+      .column(Users.ROLE_COLUMN)
+      .writeTime(Users.ROLE_COLUMN).as(ROLE_WRITE_TIME)
+      .from(Users.TABLE_NAME);
+
+  private final CassandraSessionProvider cassandraSessionProvider;
+  private final PreparedStatements preparedStatements;
+  private final Logger logger;
+
+  @Autowired
+  UsersByRole(final CassandraSessionProvider cassandraSessionProvider,
+              final PreparedStatements preparedStatements,
+              @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
+    this.cassandraSessionProvider = cassandraSessionProvider;
+    this.preparedStatements = preparedStatements;
+    this.logger = logger;
+  }
+
+  public void buildTable() {
+    final Create create = SchemaBuilder.createTable(TABLE_NAME)
+        .ifNotExists()
+        .addPartitionKey(ROLE_IDENTIFIER_COLUMN, DataType.text())
+        .addClusteringColumn(USER_IDENTIFIER_COLUMN, DataType.text());
+
+    cassandraSessionProvider.getTenantSession().execute(create);
+  }
+
+  /**
+   * @param userWrite the write of a new user, with the given role.
+   * @return the user write and the user's index row in one logged batch, or the user write alone if the table does
+   * not exist yet.
+   */
+  Statement withAdd(final Statement userWrite, final String roleIdentifier, final String userIdentifier) {
+    try {
+      return new BatchStatement()
+          .add(userWrite)
+          .add(preparedStatements.bind(INSERT, roleIdentifier, userIdentifier));
+    }
+    catch (final InvalidQueryException e) {
+      skipped(e);
+      return userWrite;
+    }
+  }
+
+  /**
+   * @param userWrite the write of the user's new role.
+   * @return the user write, the removal of the user from the previous role, and the user's new index row in one
+   * logged batch, so that the user is not left listed under both roles or under neither.  The user write alone if the
+   * table does not exist yet.
+   */
+  Statement withMove(final Statement userWrite, final String userIdentifier,
+                     final String fromRoleIdentifier, final String toRoleIdentifier) {
+    if (fromRoleIdentifier == null || Objects.equals(fromRoleIdentifier, toRoleIdentifier))
+      return withAdd(userWrite, toRoleIdentifier, userIdentifier);
+
+    try {
+      return new BatchStatement()
+          .add(userWrite)
+          .add(preparedStatements.bind(DELETE, fromRoleIdentifier, userIdentifier))
+          .add(preparedStatements.bind(INSERT, toRoleIdentifier, userIdentifier));
+    }
+    catch (final InvalidQueryException e) {
+      skipped(e);
+      return userWrite;
+    }
+  }
+
+  /**
+   * Reads one page of the users holding the role, in identifier order.
+   *
+   * @param pageToken the next page token of the previous page, or empty for the first page.
+   * @throws PagingStateException if the page token was not issued for this query.
+   * @throws IllegalArgumentException if the page token cannot be decoded.
+   */
+  public Page getPage(final String roleIdentifier, final int pageSize, final Optional<String> pageToken) {
+    try {
+      return readPage(roleIdentifier, pageSize, pageToken);
+    }
+    catch (final InvalidQueryException e) {
+      //The table does not exist yet.
+      backfill();
+      return readPage(roleIdentifier, pageSize, pageToken);
+    }
+  }
+
+  /**
+   * Adds the row of every user in isis_users, creating the table first if needed.  Safe to repeat, and safe to run
+   * while users are created or change roles.
+   */
+  public synchronized void backfill() {
+    buildTable();
+
+    final Session session = cassandraSessionProvider.getTenantSession();
+    final ResultSet users = session.execute(preparedStatements.bind(SELECT_USER_ROLES).setFetchSize(BACKFILL_FETCH_SIZE));
+    final List<ResultSetFuture> writes = new ArrayList<>(BACKFILL_CONCURRENT_WRITES);
+    int count = 0;
+    for (final Row row : users) {
+      final String roleIdentifier = row.getString(Users.ROLE_COLUMN);
+      if (roleIdentifier == null)
+        continue;
+
+      writes.add(session.executeAsync(preparedStatements.bind(INSERT_AT_TIMESTAMP,
+          roleIdentifier, row.getString(Users.IDENTIFIER_COLUMN), row.getLong(ROLE_WRITE_TIME))));
+      count++;
+      if (writes.size() == BACKFILL_CONCURRENT_WRITES) {
+        writes.forEach(ResultSetFuture::getUninterruptibly);
+        writes.clear();
+      }
+    }
+    writes.forEach(ResultSetFuture::getUninterruptibly);
+
+    logger.info("Backfilled the roles of {} users for tenant '{}'.", count, TenantContextHolder.checkedGetIdentifier());
+  }
+
+  private Page readPage(final String roleIdentifier, final int pageSize, final Optional<String> pageToken) {
+    final Statement select = preparedStatements.bind(SELECT_FOR_ROLE, roleIdentifier).setFetchSize(pageSize);
+    if (pageToken.isPresent())
+      select.setPagingState(PagingState.fromString(pageToken.get()));
+
+    final ResultSet resultSet = cassandraSessionProvider.getTenantSession().execute(select);
+    final Optional<String> nextPageToken = Optional.ofNullable(resultSet.getExecutionInfo().getPagingState())
+        .map(PagingState::toString);
+    final int available = resultSet.getAvailableWithoutFetching();
+    final List<String> userIdentifiers = new ArrayList<>(available);
+    for (int i = 0; i < available; i++)
+      userIdentifiers.add(resultSet.one().getString(USER_IDENTIFIER_COLUMN));
+
+    return new Page(userIdentifiers, nextPageToken);
+  }
+
+  private void skipped(final InvalidQueryException e) {
+    logger.debug("User written without its role index rows, since the table does not exist yet: {}", e.getMessage());
+  }
+
+  public static class Page {
+    private final List<String> userIdentifiers;
+    private final Optional<String> nextPageToken;
+
+    private Page(final List<String> userIdentifiers, final Optional<String> nextPageToken) {
+      this.userIdentifiers = userIdentifiers;
+      this.nextPageToken = nextPageToken;
+    }
+
+    public List<String> getUserIdentifiers() {
+      return userIdentifiers;
+    }
+
+    public Optional<String> getNextPageToken() {
+      return nextPageToken;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An immutable snapshot of a tenant's valid key timestamps, in ascending order, and of the private signature belonging
+ * to the most recent of them.
+ */
+class ValidSignatures {
+  private final List<String> keyTimestamps;
+  private final PrivateSignatureEntity privateSignature;
+
+  ValidSignatures(final List<String> keyTimestamps, final PrivateSignatureEntity privateSignature) {
+    this.keyTimestamps = Collections.unmodifiableList(keyTimestamps);
+    this.privateSignature = privateSignature;
+  }
+
+  List<String> getKeyTimestamps() {
+    return keyTimestamps;
+  }
+
+  Optional<PrivateSignatureEntity> getPrivateSignature() {
+    return Optional.ofNullable(privateSignature);
+  }
+
+  boolean isEmpty() {
+    return privateSignature == null;
+  }
+}
@@ -23,6 +23,7 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import org.apache.fineract.cn.anubis.api.v1.domain.Signature;
+import org.apache.fineract.cn.identity.api.v1.domain.ApplicationPermissionUserEnabled;
 import org.apache.fineract.cn.identity.api.v1.domain.CallEndpointSet;
 import org.apache.fineract.cn.identity.api.v1.domain.Permission;
 import org.apache.fineract.cn.identity.internal.mapper.ApplicationCallEndpointSetMapper;
@@ -31,9 +32,10 @@ import org.apache.fineract.cn.identity.internal.mapper.SignatureMapper;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpointSets;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionUsers;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissions;
-import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatures;
+import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -46,22 +48,23 @@ public class ApplicationService {
   private final ApplicationPermissions applicationPermissionsRepository;
   private final ApplicationPermissionUsers applicationPermissionsUserRepository;
   private final ApplicationCallEndpointSets applicationCallEndpointSets;
+  private final int maximumPermissionUsersPerRequest;
 
   @Autowired
   public ApplicationService(final ApplicationSignatures applicationSignaturesRepository,
                             final ApplicationPermissions applicationPermissionsRepository,
                             final ApplicationPermissionUsers applicationPermissionsUserRepository,
-                            final ApplicationCallEndpointSets applicationCallEndpointSets) {
+                            final ApplicationCallEndpointSets applicationCallEndpointSets,
+                            @Value("${identity.applicationPermissionUsers.maximumPerRequest:1000}") final int maximumPermissionUsersPerRequest) {
     this.applicationSignaturesRepository = applicationSignaturesRepository;
     this.applicationPermissionsRepository = applicationPermissionsRepository;
     this.applicationPermissionsUserRepository = applicationPermissionsUserRepository;
     this.applicationCallEndpointSets = applicationCallEndpointSets;
+    this.maximumPermissionUsersPerRequest = maximumPermissionUsersPerRequest;
   }
 
   public List<String> getAllApplications() {
-    return applicationSignaturesRepository.getAll().stream()
-            .map(ApplicationSignatureEntity::getApplicationIdentifier)
-            .collect(Collectors.toList());
+    return applicationSignaturesRepository.getAllApplicationIdentifiers();
   }
 
   public List<Permission> getAllPermissionsForApplication(final String applicationIdentifier) {
@@ -97,6 +100,30 @@ public class ApplicationService {
     return applicationPermissionsUserRepository.enabled(applicationIdentifier, permittableEndpointGroupIdentifier, userIdentifier);
   }
 
+  /**
+   * Checks a bulk change of enabled flags for one application: its size, that every entry is complete, and that
+   * each permittable group named is a permission of the application.  Each distinct group is looked up once.
+   */
+  public void checkApplicationPermissionUsers(final @Nonnull String applicationIdentifier,
+                                              final @Nonnull List<ApplicationPermissionUserEnabled> permissionUsers) {
+    if (permissionUsers.isEmpty() || permissionUsers.size() > maximumPermissionUsersPerRequest)
+      throw ServiceException.badRequest("Between 1 and {0} enabled flags can be set in one request.",
+              maximumPermissionUsersPerRequest);
+
+    if (permissionUsers.stream().anyMatch(x -> x == null || x.getPermittableGroupIdentifier() == null || x.getUserIdentifier() == null))
+      throw ServiceException.badRequest("Every enabled flag needs a permittableGroupIdentifier and a userIdentifier.");
+
+    permissionUsers.stream()
+            .map(ApplicationPermissionUserEnabled::getPermittableGroupIdentifier)
+            .distinct()
+            .filter(x -> !applicationPermissionExists(applicationIdentifier, x))
+            .findFirst()
+            .ifPresent(x -> {
+              throw ServiceException.notFound("Application permission ''{0}.{1}'' doesn''t exist.",
+                      applicationIdentifier, x);
+            });
+  }
+
   public List<CallEndpointSet> getAllCallEndpointSetsForApplication(final String applicationIdentifier) {
     return applicationCallEndpointSets.getAllForApplication(applicationIdentifier).stream()
             .map(ApplicationCallEndpointSetMapper::map)
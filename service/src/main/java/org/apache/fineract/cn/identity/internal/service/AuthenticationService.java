@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import org.apache.fineract.cn.anubis.security.AmitAuthenticationException;
+import org.apache.fineract.cn.command.domain.CommandCallback;
+import org.apache.fineract.cn.command.domain.CommandProcessingException;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.identity.internal.command.AuthenticationCommandResponse;
+import org.apache.fineract.cn.identity.internal.command.FirebaseAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.command.PasswordAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.command.RefreshTokenAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.command.handler.AuthenticationCommandHandler;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Authenticates users.  Authentication changes no state apart from firing an event, so by default the handler is
+ * called directly on the calling thread instead of dispatching the command through the command bus.  Setting
+ * identity.token.commandBus.enabled routes authentication through the command bus again.
+ *
+ * Either way, failed authentication surfaces as an AmitAuthenticationException, service exceptions are passed on,
+ * and anything else becomes an internal error.
+ */
+@Service
+public class AuthenticationService {
+  private final AuthenticationCommandHandler authenticationCommandHandler;
+  private final CommandGateway commandGateway;
+  private final boolean commandBusEnabled;
+  private final Logger logger;
+
+  @Autowired
+  AuthenticationService(
+      final AuthenticationCommandHandler authenticationCommandHandler,
+      final CommandGateway commandGateway,
+      @Value("${identity.token.commandBus.enabled:false}") final boolean commandBusEnabled,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
+    this.authenticationCommandHandler = authenticationCommandHandler;
+    this.commandGateway = commandGateway;
+    this.commandBusEnabled = commandBusEnabled;
+    this.logger = logger;
+  }
+
+  public AuthenticationCommandResponse authenticate(final PasswordAuthenticationCommand command)
+      throws AmitAuthenticationException {
+    return process(command, authenticationCommandHandler::process);
+  }
+
+  public AuthenticationCommandResponse authenticate(final RefreshTokenAuthenticationCommand command)
+      throws AmitAuthenticationException {
+    return process(command, authenticationCommandHandler::process);
+  }
+
+  public AuthenticationCommandResponse authenticate(final FirebaseAuthenticationCommand command)
+      throws AmitAuthenticationException {
+    return process(command, authenticationCommandHandler::process);
+  }
+
+  private <T> AuthenticationCommandResponse process(
+      final T command,
+      final Function<T, AuthenticationCommandResponse> handler) throws AmitAuthenticationException {
+    if (commandBusEnabled)
+      return processViaCommandBus(command);
+
+    try {
+      return handler.apply(command);
+    }
+    catch (final RuntimeException e) {
+      throw translate(e);
+    }
+  }
+
+  private RuntimeException translate(final RuntimeException e) {
+    if (e instanceof AmitAuthenticationException) {
+      logger.debug("Authentication failed.", e);
+      return e;
+    }
+    else if (e instanceof ServiceException) {
+      return e;
+    }
+    else {
+      logger.error("Authentication failed with an unexpected error.", e);
+      return ServiceException.internalError("An error occurred while attempting to authenticate a user.");
+    }
+  }
+
+  private AuthenticationCommandResponse processViaCommandBus(final Object authenticationCommand)
+      throws AmitAuthenticationException {
+    try
+    {
+      final CommandCallback<AuthenticationCommandResponse> ret =
+          commandGateway.process(authenticationCommand,
+                  AuthenticationCommandResponse.class);
+
+      return ret.get();
+    }
+    catch (final InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw ServiceException.internalError("Interrupted while attempting to authenticate a user.");
+    }
+    catch (final ExecutionException e)
+    {
+      if (AmitAuthenticationException.class.isAssignableFrom(e.getCause().getClass()))
+      {
+        logger.debug("Authentication failed.", e);
+        throw AmitAuthenticationException.class.cast(e.getCause());
+      }
+      else if (CommandProcessingException.class.isAssignableFrom(e.getCause().getClass()))
+      {
+        final CommandProcessingException commandProcessingException = (CommandProcessingException) e.getCause();
+        if (ServiceException.class.isAssignableFrom(commandProcessingException.getCause().getClass()))
+          throw (ServiceException)commandProcessingException.getCause();
+        else {
+          logger.error("Authentication failed with an unexpected error.", e);
+          throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
+        }
+      }
+      else if (ServiceException.class.isAssignableFrom(e.getCause().getClass()))
+      {
+        throw (ServiceException)e.getCause();
+      }
+      else {
+        logger.error("Authentication failed with an unexpected error.", e);
+        throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
+      }
+    }
+    catch (final CommandProcessingException e)
+    {
+      logger.error("Authentication failed with an unexpected error.", e);
+      throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
+    }
+  }
+}
@@ -26,11 +26,12 @@ import org.apache.fineract.cn.anubis.api.v1.domain.ApplicationSignatureSet;
 import org.apache.fineract.cn.anubis.api.v1.domain.Signature;
 import org.apache.fineract.cn.anubis.config.TenantSignatureRepository;
 import org.apache.fineract.cn.identity.internal.mapper.SignatureMapper;
+import org.apache.fineract.cn.identity.internal.repository.PrivateKeyCache;
 import org.apache.fineract.cn.identity.internal.repository.PrivateSignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.SignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.Signatures;
+import org.apache.fineract.cn.identity.internal.repository.Tenants;
 import org.apache.fineract.cn.lang.security.RsaKeyPairFactory;
-import org.apache.fineract.cn.lang.security.RsaPrivateKeyBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -40,11 +41,21 @@ import org.springframework.stereotype.Service;
 @Service
 public class TenantService implements TenantSignatureRepository {
   private final Signatures signatures;
+  private final PrivateKeyCache privateKeyCache;
+  private final Tenants tenants;
 
   @Autowired
-  TenantService(final Signatures signatures)
+  TenantService(final Signatures signatures,
+                final PrivateKeyCache privateKeyCache,
+                final Tenants tenants)
   {
     this.signatures = signatures;
+    this.privateKeyCache = privateKeyCache;
+    this.tenants = tenants;
+  }
+
+  public boolean reloadTenantInfo() {
+    return tenants.reload().isPresent();
   }
 
   public Optional<Signature> getIdentityManagerSignature(final String keyTimestamp) {
@@ -97,10 +108,7 @@ public class TenantService implements TenantSignatureRepository {
     final Optional<PrivateSignatureEntity> privateSignatureEntity = signatures.getPrivateSignature();
     return privateSignatureEntity.map(x -> {
       final String timestamp = x.getKeyTimestamp();
-      final PrivateKey privateKey = new RsaPrivateKeyBuilder()
-              .setPrivateKeyExp(x.getPrivateKeyExp())
-              .setPrivateKeyMod(x.getPrivateKeyMod())
-              .build();
+      final PrivateKey privateKey = privateKeyCache.get(x);
       return new RsaKeyPairFactory.KeyPairHolder(timestamp, null, (RSAPrivateKey)privateKey);
     });
   }
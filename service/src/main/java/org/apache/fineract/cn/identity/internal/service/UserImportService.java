@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportReport;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportResult;
+import org.apache.fineract.cn.identity.api.v1.domain.UserWithPassword;
+import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
+import org.apache.fineract.cn.identity.internal.command.handler.AsyncEventPublisher;
+import org.apache.fineract.cn.identity.internal.command.handler.UserEntityCreator;
+import org.apache.fineract.cn.identity.internal.repository.PrivateTenantInfoEntity;
+import org.apache.fineract.cn.identity.internal.repository.Tenants;
+import org.apache.fineract.cn.identity.internal.repository.UserEntity;
+import org.apache.fineract.cn.identity.internal.repository.Users;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creates users in bulk from a JSON array or from newline delimited JSON objects, without going through the command
+ * bus one user at a time.  Rows are read as the input streams in and handled in chunks: the existence of each user is
+ * checked with concurrent asynchronous reads, the passwords of the chunk are hashed in parallel on the password hash
+ * pool, and the users are written with concurrent asynchronous inserts.  The writes of one chunk overlap the hashing of
+ * the next, so at most two chunks are in flight.
+ *
+ * Users which already exist are not changed.  An OPERATION_POST_USER event is published for each imported user through
+ * the asynchronous event publisher, which sends them in batches.
+ */
+@Service
+public class UserImportService {
+  private final Users users;
+  private final Tenants tenants;
+  private final UserEntityCreator userEntityCreator;
+  private final AsyncEventPublisher eventPublisher;
+  private final Gson gson;
+  private final Logger logger;
+  private final int chunkSize;
+  private final Validator validator;
+
+  @Autowired
+  UserImportService(
+      final Users users,
+      final Tenants tenants,
+      final UserEntityCreator userEntityCreator,
+      final AsyncEventPublisher eventPublisher,
+      @Qualifier(IdentityConstants.JSON_SERIALIZER_NAME) final Gson gson,
+      @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger,
+      @Value("${identity.users.import.chunkSize:64}") final int chunkSize) {
+    this.users = users;
+    this.tenants = tenants;
+    this.userEntityCreator = userEntityCreator;
+    this.eventPublisher = eventPublisher;
+    this.gson = gson;
+    this.logger = logger;
+    this.chunkSize = chunkSize;
+    this.validator = Validation.buildDefaultValidatorFactory().getValidator();
+  }
+
+  /**
+   * Imports the users in the input.  If not even the first row can be read, the import is refused as a bad request.
+   * If reading fails later on, the rows read up to that point are still imported, and the report says where reading
+   * stopped.
+   */
+  public UserImportReport importUsers(final InputStream input) {
+    final PrivateTenantInfoEntity tenantInfo = tenants.getPrivateTenantInfo()
+        .orElseThrow(() -> ServiceException.internalError("The tenant is not initialized."));
+    final long startedAt = System.nanoTime();
+
+    final Progress progress = new Progress(tenantInfo);
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    List<Row> writing = Collections.emptyList();
+    int rowNumber = 0;
+    String error = null;
+    try {
+      final JsonReader reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+      //Lenient, so that newline delimited objects can be read as a sequence of top level values.
+      reader.setLenient(true);
+      final boolean array = reader.peek() == JsonToken.BEGIN_ARRAY;
+      if (array)
+        reader.beginArray();
+
+      while (array ? reader.hasNext() : reader.peek() != JsonToken.END_DOCUMENT) {
+        final UserWithPassword user = gson.fromJson(reader, UserWithPassword.class);
+        chunk.add(new Row(++rowNumber, user));
+        if (chunk.size() == chunkSize) {
+          writing = process(chunk, writing, progress);
+          chunk = new ArrayList<>(chunkSize);
+        }
+      }
+    }
+    catch (final IOException | JsonParseException | IllegalStateException e) {
+      if (rowNumber == 0)
+        throw ServiceException.badRequest("Users to import could not be read: {0}", e.getMessage());
+
+      error = "Reading stopped after row " + rowNumber + ": " + e.getMessage();
+    }
+
+    writing = process(chunk, writing, progress);
+    finish(writing, progress);
+
+    final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    final double usersPerSecond = elapsedMillis == 0
+        ? 0.0 : progress.importedCount * 1000.0 / elapsedMillis;
+    logger.info("Imported {} of {} users in {} ms.", progress.importedCount, progress.results.size(), elapsedMillis);
+
+    return new UserImportReport(
+        progress.results,
+        progress.importedCount,
+        progress.results.size() - progress.importedCount,
+        elapsedMillis,
+        usersPerSecond,
+        error);
+  }
+
+  /**
+   * Checks, hashes, and starts writing the rows of the chunk.  Before the writes are started, the writes of the
+   * previous chunk are waited for.
+   *
+   * @return the rows of this chunk, whose writes are still in flight.
+   */
+  private List<Row> process(final List<Row> chunk, final List<Row> previous, final Progress progress) {
+    for (final Row row : chunk)
+      validate(row, progress);
+
+    //Every row is read: a miss in this instance's identifier filter does not rule out a user created elsewhere, and
+    //addAsync would overwrite it.
+    for (final Row row : chunk) {
+      if (row.pending())
+        row.existing = users.getAsync(row.user.getIdentifier());
+    }
+
+    for (final Row row : chunk) {
+      if (row.existing != null)
+        await(row, row.existing).ifPresent(found -> {
+          if (found.isPresent())
+            row.reject(UserImportResult.Status.ALREADY_EXISTS, "User already exists.");
+        });
+
+      if (row.pending()) {
+        try {
+          row.entity = userEntityCreator.buildAsync(
+              row.user.getId(),
+              row.user.getIdentifier(),
+              row.user.getRole(),
+              row.user.getPassword(),
+              false,
+              progress.tenantInfo.getFixedSalt().array(),
+              progress.tenantInfo.getPasswordExpiresInDays());
+        }
+        catch (final ServiceException e) {
+          row.reject(UserImportResult.Status.FAILED, e.serviceError().getMessage());
+        }
+      }
+    }
+
+    finish(previous, progress);
+
+    for (final Row row : chunk) {
+      if (row.entity != null)
+        await(row, row.entity).ifPresent(entity -> row.write = users.addAsync(entity));
+    }
+
+    return chunk;
+  }
+
+  private void finish(final List<Row> rows, final Progress progress) {
+    for (final Row row : rows) {
+      if (row.write != null)
+        await(row, row.write);
+
+      if (row.pending()) {
+        row.status = UserImportResult.Status.IMPORTED;
+        progress.importedCount++;
+        eventPublisher.publish(EventConstants.OPERATION_POST_USER, row.user.getIdentifier());
+      }
+
+      progress.results.add(new UserImportResult(
+          row.number,
+          row.user == null ? null : row.user.getIdentifier(),
+          row.status,
+          row.message));
+    }
+  }
+
+  private void validate(final Row row, final Progress progress) {
+    if (row.user == null) {
+      row.reject(UserImportResult.Status.INVALID, "Row is empty.");
+      return;
+    }
+
+    final Set<ConstraintViolation<UserWithPassword>> violations = validator.validate(row.user);
+    if (!violations.isEmpty()) {
+      row.reject(UserImportResult.Status.INVALID, violations.stream()
+          .map(x -> x.getPropertyPath() + " " + x.getMessage())
+          .sorted()
+          .collect(Collectors.joining("; ")));
+    }
+    else if (row.user.getPassword() == null || row.user.getPassword().isEmpty()) {
+      row.reject(UserImportResult.Status.INVALID, "password may not be empty.");
+    }
+    else if (!progress.identifiers.add(row.user.getIdentifier())) {
+      row.reject(UserImportResult.Status.ALREADY_EXISTS, "User appears more than once in the import.");
+    }
+  }
+
+  private <T> Optional<T> await(final Row row, final CompletableFuture<T> future) {
+    try {
+      return Optional.of(future.join());
+    }
+    catch (final CompletionException e) {
+      final Throwable cause = e.getCause() == null ? e : e.getCause();
+      logger.warn("Failed to import user '{}'.", row.user.getIdentifier(), cause);
+      row.reject(UserImportResult.Status.FAILED, cause instanceof ServiceException
+          ? ((ServiceException) cause).serviceError().getMessage()
+          : "User could not be written.");
+      return Optional.empty();
+    }
+  }
+
+  private static final class Progress {
+    private final PrivateTenantInfoEntity tenantInfo;
+    private final List<UserImportResult> results = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private int importedCount;
+
+    private Progress(final PrivateTenantInfoEntity tenantInfo) {
+      this.tenantInfo = tenantInfo;
+    }
+  }
+
+  private static final class Row {
+    private final int number;
+    private final UserWithPassword user;
+    private UserImportResult.Status status;
+    private String message;
+    private CompletableFuture<Optional<UserEntity>> existing;
+    private CompletableFuture<UserEntity> entity;
+    private CompletableFuture<Void> write;
+
+    private Row(final int number, final UserWithPassword user) {
+      this.number = number;
+      this.user = user;
+    }
+
+    private boolean pending() {
+      return status == null;
+    }
+
+    private void reject(final UserImportResult.Status status, final String message) {
+      this.status = status;
+      this.message = message;
+    }
+  }
+}
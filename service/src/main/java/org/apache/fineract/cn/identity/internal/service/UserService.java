@@ -18,19 +18,27 @@
  */
 package org.apache.fineract.cn.identity.internal.service;
 
+import com.datastax.driver.core.exceptions.PagingStateException;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import org.apache.fineract.cn.identity.api.v1.PermittableGroupIds;
 import org.apache.fineract.cn.identity.api.v1.domain.Permission;
 import org.apache.fineract.cn.identity.api.v1.domain.User;
+import org.apache.fineract.cn.identity.api.v1.domain.UserPage;
 import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
 import org.apache.fineract.cn.identity.internal.repository.PermissionType;
 import org.apache.fineract.cn.identity.internal.repository.RoleEntity;
 import org.apache.fineract.cn.identity.internal.repository.Roles;
 import org.apache.fineract.cn.identity.internal.repository.UserEntity;
 import org.apache.fineract.cn.identity.internal.repository.Users;
+import org.apache.fineract.cn.identity.internal.repository.UsersByRole;
+import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -38,19 +46,82 @@ import java.util.stream.Collectors;
  */
 @Service
 public class UserService {
+  private static final int CONCURRENT_READS = 64;
 
   private final Users users;
   private final Roles roles;
+  private final UsersByRole usersByRole;
+  private final int unpagedLimit;
+  private final int maximumPageSize;
 
   @Autowired
-  UserService(final Users users, final Roles roles)
+  UserService(final Users users,
+              final Roles roles,
+              final UsersByRole usersByRole,
+              @Value("${identity.users.unpagedLimit:10000}") final int unpagedLimit,
+              @Value("${identity.users.maximumPageSize:1000}") final int maximumPageSize)
   {
     this.users = users;
     this.roles = roles;
+    this.usersByRole = usersByRole;
+    this.unpagedLimit = unpagedLimit;
+    this.maximumPageSize = maximumPageSize;
   }
 
+  /**
+   * All users, as long as there are no more than the unpaged limit.  Tenants with more users must page through them.
+   */
   public List<User> findAll() {
-    return users.getAll().stream().map(UserService::mapUser).collect(Collectors.toList());
+    final List<UserEntity> entities = users.getAll(unpagedLimit + 1);
+    if (entities.size() > unpagedLimit)
+      throw ServiceException.badRequest("There are more than {0} users.  Use pageSize and pageToken to list them.",
+          unpagedLimit);
+
+    return entities.stream().map(UserService::mapUser).collect(Collectors.toList());
+  }
+
+  /**
+   * One page of users.  The users are mapped while the page is iterated, so that they can be written out without
+   * holding the whole page.
+   */
+  public Page findPage(final int pageSize, final Optional<String> pageToken) {
+    if (pageSize < 1 || pageSize > maximumPageSize)
+      throw ServiceException.badRequest("pageSize must be between 1 and {0}.", maximumPageSize);
+
+    final Users.Page page;
+    try {
+      page = users.getPage(pageSize, pageToken);
+    }
+    catch (final PagingStateException | IllegalArgumentException e) {
+      throw ServiceException.badRequest("pageToken ''{0}'' is not valid.", pageToken.orElse(""));
+    }
+
+    return new Page(
+        () -> Iterators.transform(page.getEntities().iterator(), UserService::mapUser),
+        page.getNextPageToken());
+  }
+
+  /**
+   * One page of the users holding the role, read from the users by role index rather than from all users.
+   */
+  public UserPage findPageForRole(final String roleIdentifier, final int pageSize, final Optional<String> pageToken) {
+    if (pageSize < 1 || pageSize > maximumPageSize)
+      throw ServiceException.badRequest("pageSize must be between 1 and {0}.", maximumPageSize);
+    if (!roles.get(roleIdentifier).isPresent())
+      throw ServiceException.notFound("Role with identifier " + roleIdentifier + " doesn't exist.");
+
+    final UsersByRole.Page page;
+    try {
+      page = usersByRole.getPage(roleIdentifier, pageSize, pageToken);
+    }
+    catch (final PagingStateException | IllegalArgumentException e) {
+      throw ServiceException.badRequest("pageToken ''{0}'' is not valid.", pageToken.orElse(""));
+    }
+
+    final List<User> usersWithRole = page.getUserIdentifiers().stream()
+        .map(x -> new User(x, roleIdentifier))
+        .collect(Collectors.toList());
+    return new UserPage(usersWithRole, page.getNextPageToken().orElse(null));
   }
 
   public Optional<User> findByIdentifier(final String identifier)
@@ -58,6 +129,25 @@ public class UserService {
     return users.get(identifier).map(UserService::mapUser);
   }
 
+  /**
+   * Of the given identifiers, returns those of users who do not exist.  The users are read concurrently, a limited
+   * number at a time.
+   */
+  public Set<String> findMissing(final Collection<String> identifiers)
+  {
+    final Set<String> missing = new HashSet<>();
+    final List<String> distinct = identifiers.stream().distinct().collect(Collectors.toList());
+    for (final List<String> chunk : Lists.partition(distinct, CONCURRENT_READS)) {
+      final Map<String, CompletableFuture<Optional<UserEntity>>> reads = new LinkedHashMap<>();
+      chunk.forEach(x -> reads.put(x, users.getAsync(x)));
+      reads.forEach((identifier, read) -> {
+        if (!read.join().isPresent())
+          missing.add(identifier);
+      });
+    }
+    return missing;
+  }
+
   static private User mapUser(final UserEntity u) {
     return new User(u.getIdentifier(), u.getRole());
   }
@@ -71,4 +161,25 @@ public class UserService {
 
     return new HashSet<>(permissions);
   }
+
+  public static class Page {
+    private final Iterable<User> users;
+    private final Optional<String> nextPageToken;
+
+    private Page(final Iterable<User> users, final Optional<String> nextPageToken) {
+      this.users = users;
+      this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * The users of this page.  Can only be iterated once.
+     */
+    public Iterable<User> getUsers() {
+      return users;
+    }
+
+    public Optional<String> getNextPageToken() {
+      return nextPageToken;
+    }
+  }
 }
\ No newline at end of file
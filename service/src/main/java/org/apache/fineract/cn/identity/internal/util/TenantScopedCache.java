@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+
+/**
+ * A bounded, evicting cache with one segment per tenant.  The tenant is taken from the TenantContextHolder.  If no
+ * tenant is set, the cache is bypassed and values are loaded directly.
+ *
+ * Entries also expire after a fixed time so that changes made by another instance of this service become visible
+ * without an explicit invalidation.
+ */
+public class TenantScopedCache<K, V> {
+  private final ConcurrentMap<String, Cache<K, V>> caches = new ConcurrentHashMap<>();
+  private final long maximumSizePerTenant;
+  private final long expireAfterWriteSeconds;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public TenantScopedCache(final long maximumSizePerTenant, final long expireAfterWriteSeconds) {
+    this.maximumSizePerTenant = maximumSizePerTenant;
+    this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+  }
+
+  public V get(final K key, final Callable<? extends V> loader) {
+    final Optional<Cache<K, V>> cache = tenantCache();
+    if (!cache.isPresent()) {
+      misses.increment();
+      return call(loader);
+    }
+
+    final V cached = cache.get().getIfPresent(key);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+
+    misses.increment();
+    try {
+      return cache.get().get(key, loader);
+    }
+    catch (final ExecutionException | UncheckedExecutionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  /**
+   * Like get, but for loaders which may not find a value.  Only values which were found are cached.
+   */
+  public Optional<V> find(final K key, final Supplier<Optional<V>> loader) {
+    final Optional<Cache<K, V>> cache = tenantCache();
+    final V cached = cache.map(x -> x.getIfPresent(key)).orElse(null);
+    if (cached != null) {
+      hits.increment();
+      return Optional.of(cached);
+    }
+
+    misses.increment();
+    final Optional<V> loaded = loader.get();
+    loaded.ifPresent(value -> cache.ifPresent(x -> x.put(key, value)));
+    return loaded;
+  }
+
+  public Optional<V> getIfPresent(final K key) {
+    return tenantCache().map(x -> x.getIfPresent(key));
+  }
+
+  public void put(final K key, final V value) {
+    tenantCache().ifPresent(x -> x.put(key, value));
+  }
+
+  public void invalidate(final K key) {
+    tenantCache().ifPresent(x -> x.invalidate(key));
+  }
+
+  public void invalidateIf(final Predicate<K> predicate) {
+    tenantCache().ifPresent(x -> x.asMap().keySet().removeIf(predicate));
+  }
+
+  public void invalidateTenant() {
+    TenantContextHolder.identifier().ifPresent(caches::remove);
+  }
+
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  private Optional<Cache<K, V>> tenantCache() {
+    return TenantContextHolder.identifier().map(tenant -> caches.computeIfAbsent(tenant, x -> CacheBuilder.newBuilder()
+        .maximumSize(maximumSizePerTenant)
+        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+        .build()));
+  }
+
+  private static <V> V call(final Callable<? extends V> loader) {
+    try {
+      return loader.call();
+    }
+    catch (final Exception e) {
+      throw propagate(e);
+    }
+  }
+
+  private static RuntimeException propagate(final Throwable cause) {
+    if (cause instanceof RuntimeException)
+      return (RuntimeException) cause;
+    if (cause instanceof Error)
+      throw (Error) cause;
+    return new IllegalStateException(cause);
+  }
+}
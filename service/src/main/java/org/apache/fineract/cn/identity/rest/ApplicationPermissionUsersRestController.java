@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.rest;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
+import org.apache.fineract.cn.anubis.annotation.Permittable;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.identity.api.v1.PermittableGroupIds;
+import org.apache.fineract.cn.identity.api.v1.domain.ApplicationPermissionUserEnabled;
+import org.apache.fineract.cn.identity.internal.command.SetApplicationPermissionUsersEnabledCommand;
+import org.apache.fineract.cn.identity.internal.service.ApplicationService;
+import org.apache.fineract.cn.identity.internal.service.UserService;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sets the enabled flags of many users for the permissions of one application in a single command, rather than one
+ * command per flag as in {@link ApplicationPermissionUserRestController}.  This is an administrative operation on
+ * users, so it is mapped below /users, where the identity management permittable group applies.
+ */
+@SuppressWarnings("unused")
+@RestController
+@RequestMapping("/users/applications/{applicationidentifier}/permissions")
+public class ApplicationPermissionUsersRestController {
+  private final ApplicationService service;
+  private final UserService userService;
+  private final CommandGateway commandGateway;
+
+  @Autowired
+  public ApplicationPermissionUsersRestController(
+          final ApplicationService service,
+          final UserService userService,
+          final CommandGateway commandGateway) {
+    this.service = service;
+    this.userService = userService;
+    this.commandGateway = commandGateway;
+  }
+
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.IDENTITY_MANAGEMENT)
+  @RequestMapping(value = "/enabled", method = RequestMethod.PUT,
+          consumes = {MediaType.APPLICATION_JSON_VALUE},
+          produces = {MediaType.APPLICATION_JSON_VALUE})
+  public @ResponseBody
+  ResponseEntity<Void>
+  setApplicationPermissionsEnabledForUsers(@PathVariable("applicationidentifier") String applicationIdentifier,
+                                           @RequestBody List<ApplicationPermissionUserEnabled> permissionUsers)
+  {
+    service.checkApplicationPermissionUsers(applicationIdentifier, permissionUsers);
+
+    final Set<String> missingUsers = userService.findMissing(permissionUsers.stream()
+            .map(ApplicationPermissionUserEnabled::getUserIdentifier)
+            .collect(Collectors.toList()));
+    if (!missingUsers.isEmpty())
+      throw ServiceException.notFound("{0} users don''t exist, among them ''{1}''.",
+              missingUsers.size(), missingUsers.iterator().next());
+
+    commandGateway.process(new SetApplicationPermissionUsersEnabledCommand(applicationIdentifier, permissionUsers));
+    return ResponseEntity.accepted().build();
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.rest;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.lang.ServiceError;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs authentication requests off the servlet container's request threads.  The request thread is released as soon
+ * as the work is queued, and the response is completed asynchronously.  The tenant of the request is carried over to
+ * the thread doing the work.  The queue is bounded; when it is full, requests are refused immediately with a 503.
+ * Exceptions thrown by a request complete its future as they are, rather than wrapped in a CompletionException, so
+ * that they are handled the same way as exceptions thrown directly by a controller.
+ */
+@Component
+public class AuthenticationRequestExecutor implements PublicMetrics {
+  private final ThreadPoolExecutor executor;
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final AtomicInteger running = new AtomicInteger();
+  private final AtomicInteger peakRunning = new AtomicInteger();
+
+  @Autowired
+  AuthenticationRequestExecutor(
+      @Value("${identity.token.async.threads:32}") final int threads,
+      @Value("${identity.token.async.queueCapacity:1024}") final int queueCapacity) {
+    final AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          final Thread thread = new Thread(runnable, "identity-authentication-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  public <T> CompletableFuture<T> submit(final Supplier<T> request) {
+    final String tenant = TenantContextHolder.checkedGetIdentifier();
+    final CompletableFuture<T> ret = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        TenantContextHolder.setIdentifier(tenant);
+        peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          ret.complete(request.get());
+        }
+        catch (final Throwable e) {
+          ret.completeExceptionally(e);
+        }
+        finally {
+          running.decrementAndGet();
+          TenantContextHolder.clear();
+          completed.increment();
+        }
+      });
+      return ret;
+    }
+    catch (final RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceException(ServiceError.create(503)
+          .message("Too many concurrent authentication requests; try again later.")
+          .build());
+    }
+  }
+
+  public int getQueueDepth() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * The largest number of authentication requests which were in progress at the same time since startup.
+   */
+  public int getPeakRunning() {
+    return peakRunning.get();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.token.async.queue.depth", getQueueDepth()),
+        new Metric<>("identity.token.async.active", executor.getActiveCount()),
+        new Metric<>("identity.token.async.peakActive", getPeakRunning()),
+        new Metric<>("identity.token.async.completed", completed.sum()),
+        new Metric<>("identity.token.async.rejected", rejected.sum()));
+  }
+}
@@ -28,19 +28,19 @@ import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
 import org.apache.fineract.cn.anubis.annotation.Permittable;
 import org.apache.fineract.cn.anubis.api.v1.TokenConstants;
 import org.apache.fineract.cn.anubis.security.AmitAuthenticationException;
-import org.apache.fineract.cn.command.domain.CommandCallback;
-import org.apache.fineract.cn.command.domain.CommandProcessingException;
-import org.apache.fineract.cn.command.gateway.CommandGateway;
 import org.apache.fineract.cn.identity.internal.command.AuthenticationCommandResponse;
 import org.apache.fineract.cn.identity.internal.command.FirebaseAuthenticationCommand;
 import org.apache.fineract.cn.identity.internal.command.PasswordAuthenticationCommand;
 import org.apache.fineract.cn.identity.internal.command.RefreshTokenAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.service.AuthenticationService;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
 import org.apache.fineract.cn.lang.ServiceException;
+import org.apache.fineract.cn.lang.TenantContextHolder;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -51,7 +51,10 @@ import javax.annotation.Nullable;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.util.concurrent.ExecutionException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 
 /**
@@ -61,7 +64,9 @@ import java.util.concurrent.ExecutionException;
 @RestController //
 public class AuthorizationRestController {
 
-  private final CommandGateway commandGateway;
+  private final AuthenticationService authenticationService;
+  private final AuthenticationRequestExecutor authenticationRequestExecutor;
+  private final LoginThrottle loginThrottle;
   private final Logger logger;
 
   //Whether the cookie can only be transported via https.  Should only be set to false for testing.
@@ -71,10 +76,14 @@ public class AuthorizationRestController {
   private String contextPath;
 
   @Autowired public AuthorizationRestController(
-          final CommandGateway commandGateway,
+          final AuthenticationService authenticationService,
+          final AuthenticationRequestExecutor authenticationRequestExecutor,
+          final LoginThrottle loginThrottle,
           @Qualifier(IdentityConstants.LOGGER_NAME) final Logger logger) {
     super();
-    this.commandGateway = commandGateway;
+    this.authenticationService = authenticationService;
+    this.authenticationRequestExecutor = authenticationRequestExecutor;
+    this.loginThrottle = loginThrottle;
     this.logger = logger;
   }
 
@@ -86,29 +95,20 @@ public class AuthorizationRestController {
   )
   @Permittable(AcceptedTokenType.GUEST)
   public
-  @ResponseBody ResponseEntity<Authentication> authenticate(
-          final HttpServletResponse response,
+  @ResponseBody CompletableFuture<ResponseEntity<Authentication>> authenticate(
           final HttpServletRequest request,
           @RequestParam("grant_type") final String grantType,
           @RequestParam(value = "firebase-token-id", required = false) final String firebaseTokenId,
           @RequestParam(value = "username", required = false) final String username,
           @RequestParam(value = "password", required = false) final String password,
-          @RequestHeader(value = IdentityManager.REFRESH_TOKEN, required = false) final String refreshTokenParam) throws InterruptedException {
+          @RequestHeader(value = IdentityManager.REFRESH_TOKEN, required = false) final String refreshTokenParam) {
     switch (grantType) {
       case "refresh_token": {
         final String refreshToken = getRefreshToken(refreshTokenParam, request);
 
-        try {
-          final AuthenticationCommandResponse authenticationCommandResponse
-                  = getAuthenticationCommandResponse(new RefreshTokenAuthenticationCommand(refreshToken));
-          final Authentication ret = map(authenticationCommandResponse, response);
-
-          return new ResponseEntity<>(ret, HttpStatus.OK);
-        }
-        catch (final AmitAuthenticationException e)
-        {
-          return new ResponseEntity<>(HttpStatus.FORBIDDEN);
-        }
+        return authenticateAsync(
+            () -> authenticationService.authenticate(new RefreshTokenAuthenticationCommand(refreshToken)),
+            HttpStatus.FORBIDDEN);
       }
       case "password": {
         if (username == null)
@@ -116,30 +116,27 @@ public class AuthorizationRestController {
         if (password == null)
           throw ServiceException.badRequest("The query parameter password must be set if the grant_type is password.");
 
-        try {
-          final Authentication ret = map(getAuthenticationCommandResponse(
-              new PasswordAuthenticationCommand(username, password)), response);
-          return new ResponseEntity<>(ret, HttpStatus.OK);
-        }
-        catch (final AmitAuthenticationException e)
-        {
-          return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-
+        final String tenant = TenantContextHolder.checkedGetIdentifier();
+        final Optional<Duration> throttled = loginThrottle.tryAcquire(tenant, username);
+        if (throttled.isPresent())
+          return CompletableFuture.completedFuture(tooManyRequests(throttled.get()));
+
+        return authenticateAsync(
+            () -> {
+              final AuthenticationCommandResponse ret
+                  = authenticationService.authenticate(new PasswordAuthenticationCommand(username, password));
+              loginThrottle.succeeded(tenant, username);
+              return ret;
+            },
+            HttpStatus.NOT_FOUND);
       }
       case "firebase": {
         if (firebaseTokenId == null)
           throw ServiceException.badRequest("The query parameter firebase-token-id must be set if the grant_type is firebase.");
 
-        try {
-          final Authentication ret = map(getAuthenticationCommandResponse(
-              new FirebaseAuthenticationCommand(firebaseTokenId)), response);
-          return new ResponseEntity<>(ret, HttpStatus.OK);
-        } catch (final AmitAuthenticationException e)
-        {
-          return new ResponseEntity<>(HttpStatus.NOT_FOUND);
-        }
-
+        return authenticateAsync(
+            () -> authenticationService.authenticate(new FirebaseAuthenticationCommand(firebaseTokenId)),
+            HttpStatus.NOT_FOUND);
       }
       default:
         throw ServiceException.badRequest("invalid grant type: " + grantType);
@@ -170,55 +167,31 @@ public class AuthorizationRestController {
     return refreshTokenCookie.getValue();
   }
 
-  private AuthenticationCommandResponse getAuthenticationCommandResponse(
-      final Object authenticationCommand) throws AmitAuthenticationException, InterruptedException {
-    try
-    {
-      final CommandCallback<AuthenticationCommandResponse> ret =
-          commandGateway.process(authenticationCommand,
-                  AuthenticationCommandResponse.class);
-
-      return ret.get();
-    }
-    catch (final ExecutionException e)
-    {
-      if (AmitAuthenticationException.class.isAssignableFrom(e.getCause().getClass()))
-      {
-        logger.debug("Authentication failed.", e);
-        throw AmitAuthenticationException.class.cast(e.getCause());
-      }
-      else if (CommandProcessingException.class.isAssignableFrom(e.getCause().getClass()))
-      {
-        final CommandProcessingException commandProcessingException = (CommandProcessingException) e.getCause();
-        if (ServiceException.class.isAssignableFrom(commandProcessingException.getCause().getClass()))
-          throw (ServiceException)commandProcessingException.getCause();
-        else {
-          logger.error("Authentication failed with an unexpected error.", e);
-          throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
-        }
-      }
-      else if (ServiceException.class.isAssignableFrom(e.getCause().getClass()))
-      {
-        throw (ServiceException)e.getCause();
+  private CompletableFuture<ResponseEntity<Authentication>> authenticateAsync(
+      final Supplier<AuthenticationCommandResponse> authentication,
+      final HttpStatus statusOnAuthenticationFailure) {
+    return authenticationRequestExecutor.submit(() -> {
+      try {
+        final AuthenticationCommandResponse authenticationCommandResponse = authentication.get();
+        return ResponseEntity.ok()
+            .header(HttpHeaders.SET_COOKIE, refreshTokenCookieHeader(authenticationCommandResponse.getRefreshToken()))
+            .body(map(authenticationCommandResponse));
       }
-      else {
-        logger.error("Authentication failed with an unexpected error.", e);
-        throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
+      catch (final AmitAuthenticationException e) {
+        return new ResponseEntity<>(statusOnAuthenticationFailure);
       }
-    }
-    catch (final CommandProcessingException e)
-    {
-      logger.error("Authentication failed with an unexpected error.", e);
-      throw ServiceException.internalError("An error occurred while attempting to authenticate a user.");
-    }
+    });
   }
 
-  private Authentication map(
-          final AuthenticationCommandResponse commandResponse,
-          final HttpServletResponse httpServletResponse)
-  {
-    httpServletResponse.addCookie(bakeRefreshTokenCookie(commandResponse.getRefreshToken()));
+  private static ResponseEntity<Authentication> tooManyRequests(final Duration retryAfter) {
+    final long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+        .build();
+  }
 
+  private Authentication map(final AuthenticationCommandResponse commandResponse)
+  {
     return new Authentication(
             commandResponse.getAccessToken(),
             commandResponse.getAccessTokenExpiration(),
@@ -234,4 +207,18 @@ public class AuthorizationRestController {
     refreshTokenCookie.setPath(contextPath + "/token");
     return refreshTokenCookie;
   }
+
+  /**
+   * The response to an authentication request is completed on another thread than the one the request arrived on, so
+   * the refresh token cookie is passed back as a header of the response entity rather than added to the servlet
+   * response directly.
+   */
+  private String refreshTokenCookieHeader(final String refreshToken) {
+    final StringBuilder ret = new StringBuilder()
+        .append(TokenConstants.REFRESH_TOKEN_COOKIE_NAME).append('=').append(refreshToken)
+        .append("; Path=").append(contextPath).append("/token");
+    if (secureRefreshTokenCookie)
+      ret.append("; Secure");
+    return ret.append("; HttpOnly").toString();
+  }
 }
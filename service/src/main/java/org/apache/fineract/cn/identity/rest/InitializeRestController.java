@@ -23,6 +23,7 @@ import org.apache.fineract.cn.anubis.annotation.Permittable;
 import org.apache.fineract.cn.anubis.api.v1.domain.ApplicationSignatureSet;
 import org.apache.fineract.cn.identity.internal.command.handler.Provisioner;
 import org.apache.fineract.cn.identity.internal.service.TenantService;
+import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -72,4 +73,15 @@ public class InitializeRestController {
   public @ResponseBody ResponseEntity<ApplicationSignatureSet> createSignatureSet() {
     return ResponseEntity.ok(tenantService.createSignatureSet());
   }
+
+  @RequestMapping(value = "/tenant/_reload",
+          method = RequestMethod.POST,
+          consumes = {MediaType.ALL_VALUE},
+          produces = {MediaType.APPLICATION_JSON_VALUE})
+  @Permittable(AcceptedTokenType.SYSTEM)
+  public @ResponseBody ResponseEntity<Void> reloadTenant() {
+    if (!tenantService.reloadTenantInfo())
+      throw ServiceException.notFound("Tenant is not initialized.");
+    return ResponseEntity.accepted().build();
+  }
 }
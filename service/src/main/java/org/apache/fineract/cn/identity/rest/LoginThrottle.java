@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.rest;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits the rate of password logins per user and per tenant, so that guessing passwords cannot use up the CPU spent
+ * on password hashing.  Each limit is a token bucket, implemented as a generic cell rate algorithm: a bucket only
+ * stores the time at which it will next be empty, and is updated with a compare and set.  Successful logins are
+ * returned to the user's bucket, so only failed attempts count against a user.
+ *
+ * Off by default (identity.loginThrottle.enabled).  Anyone who knows a user name can keep that user's bucket empty
+ * with one wrong password per emission interval, and so lock the user, the tenant's superuser included, out of
+ * password login for as long as they keep it up.  Enable it where hashing capacity matters more than that.
+ *
+ * Buckets are kept in fixed size arrays indexed by a hash of the tenant and user, so memory use is bounded no matter
+ * how many user names are tried.  Users whose hashes collide share a bucket, which can only make the limit stricter.
+ */
+@Component
+public class LoginThrottle implements PublicMetrics {
+  private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+  private final boolean enabled;
+  private final Limit userLimit;
+  private final Limit tenantLimit;
+  private final long origin = System.nanoTime();
+  private final LongAdder allowed = new LongAdder();
+  private final LongAdder rejectedForUser = new LongAdder();
+  private final LongAdder rejectedForTenant = new LongAdder();
+
+  @Autowired
+  LoginThrottle(
+      @Value("${identity.loginThrottle.enabled:false}") final boolean enabled,
+      @Value("${identity.loginThrottle.user.perSecond:0.5}") final double userPerSecond,
+      @Value("${identity.loginThrottle.user.burst:10}") final int userBurst,
+      @Value("${identity.loginThrottle.user.stripes:65536}") final int userStripes,
+      @Value("${identity.loginThrottle.tenant.perSecond:200}") final double tenantPerSecond,
+      @Value("${identity.loginThrottle.tenant.burst:400}") final int tenantBurst,
+      @Value("${identity.loginThrottle.tenant.stripes:1024}") final int tenantStripes) {
+    this.enabled = enabled;
+    this.userLimit = new Limit(userPerSecond, userBurst, userStripes);
+    this.tenantLimit = new Limit(tenantPerSecond, tenantBurst, tenantStripes);
+  }
+
+  /**
+   * Takes one login attempt from the user's and the tenant's buckets.  If the tenant's bucket is empty, the attempt is
+   * returned to the user's bucket.
+   *
+   * @return empty if the attempt may go ahead, otherwise how long the client should wait before trying again.
+   */
+  public Optional<Duration> tryAcquire(final String tenant, final String userIdentifier) {
+    if (!enabled)
+      return Optional.empty();
+
+    final long now = System.nanoTime() - origin;
+
+    final int userHash = userHash(tenant, userIdentifier);
+    final long userWait = userLimit.tryAcquire(userHash, now);
+    if (userWait > 0) {
+      rejectedForUser.increment();
+      return Optional.of(Duration.ofNanos(userWait));
+    }
+
+    final long tenantWait = tenantLimit.tryAcquire(HASH_FUNCTION.hashUnencodedChars(tenant).asInt(), now);
+    if (tenantWait > 0) {
+      //The attempt was not made, so it must not count against the user.
+      userLimit.release(userHash);
+      rejectedForTenant.increment();
+      return Optional.of(Duration.ofNanos(tenantWait));
+    }
+
+    allowed.increment();
+    return Optional.empty();
+  }
+
+  /**
+   * Returns the attempt taken by tryAcquire to the user's bucket, once the login has succeeded.
+   */
+  public void succeeded(final String tenant, final String userIdentifier) {
+    if (!enabled)
+      return;
+
+    userLimit.release(userHash(tenant, userIdentifier));
+  }
+
+  private static int userHash(final String tenant, final String userIdentifier) {
+    return HASH_FUNCTION.newHasher()
+        .putUnencodedChars(tenant).putChar('\0').putUnencodedChars(userIdentifier)
+        .hash().asInt();
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>("identity.loginThrottle.allowed", allowed.sum()),
+        new Metric<>("identity.loginThrottle.rejected.user", rejectedForUser.sum()),
+        new Metric<>("identity.loginThrottle.rejected.tenant", rejectedForTenant.sum()),
+        new Metric<>("identity.loginThrottle.hashesAvoided", rejectedForUser.sum() + rejectedForTenant.sum()));
+  }
+
+  private static class Limit {
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLongArray theoreticalArrivalTimes;
+    private final int mask;
+
+    Limit(final double perSecond, final int burst, final int stripes) {
+      if (perSecond <= 0 || burst < 1 || stripes < 1)
+        throw new IllegalArgumentException("Login throttle limits must be positive.");
+      this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+      this.burstNanos = emissionIntervalNanos * burst;
+      final int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+      this.theoreticalArrivalTimes = new AtomicLongArray(size);
+      this.mask = size - 1;
+    }
+
+    /**
+     * @return 0 if the attempt is allowed, otherwise the number of nanoseconds until it would be.
+     */
+    long tryAcquire(final int hash, final long now) {
+      final int index = hash & mask;
+      while (true) {
+        final long theoreticalArrivalTime = theoreticalArrivalTimes.get(index);
+        final long next = Math.max(theoreticalArrivalTime, now) + emissionIntervalNanos;
+        final long allowedAt = next - burstNanos;
+        if (allowedAt > now)
+          return allowedAt - now;
+        if (theoreticalArrivalTimes.compareAndSet(index, theoreticalArrivalTime, next))
+          return 0;
+      }
+    }
+
+    /**
+     * Returns an attempt taken with tryAcquire.
+     */
+    void release(final int hash) {
+      theoreticalArrivalTimes.getAndAdd(hash & mask, -emissionIntervalNanos);
+    }
+  }
+}
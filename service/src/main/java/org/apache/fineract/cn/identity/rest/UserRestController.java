@@ -18,6 +18,11 @@
  */
 package org.apache.fineract.cn.identity.rest;
 
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import org.apache.fineract.cn.identity.api.v1.PermittableGroupIds;
 import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
@@ -28,19 +33,24 @@ import org.apache.fineract.cn.identity.api.v1.domain.Password;
 import org.apache.fineract.cn.identity.api.v1.domain.Permission;
 import org.apache.fineract.cn.identity.api.v1.domain.RoleIdentifier;
 import org.apache.fineract.cn.identity.api.v1.domain.User;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportReport;
+import org.apache.fineract.cn.identity.api.v1.domain.UserPage;
 import org.apache.fineract.cn.identity.api.v1.domain.UserWithPassword;
 import org.apache.fineract.cn.identity.internal.command.ChangeUserPasswordCommand;
 import org.apache.fineract.cn.identity.internal.command.ChangeUserRoleCommand;
 import org.apache.fineract.cn.identity.internal.command.CreateUserCommand;
 import org.apache.fineract.cn.identity.internal.command.CreateUserWithSocialMediaCommand;
+import org.apache.fineract.cn.identity.internal.service.UserImportService;
 import org.apache.fineract.cn.identity.internal.service.UserService;
 import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -55,15 +65,23 @@ import java.util.Set;
 @RestController
 @RequestMapping("/users")
 public class UserRestController {
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+
   private final UserService service;
+  private final UserImportService importService;
   private final CommandGateway commandGateway;
+  private final Gson gson;
 
   @Autowired
   public UserRestController(
           final CommandGateway commandGateway,
-          final UserService service) {
+          final UserService service,
+          final UserImportService importService,
+          @Qualifier(IdentityConstants.JSON_SERIALIZER_NAME) final Gson gson) {
     this.commandGateway = commandGateway;
     this.service = service;
+    this.importService = importService;
+    this.gson = gson;
   }
 
   @RequestMapping(method = RequestMethod.GET,
@@ -74,6 +92,56 @@ public class UserRestController {
     return this.service.findAll();
   }
 
+  /**
+   * Writes one page of users as a {@link UserPage}.  The page is read before the response starts, so that an invalid
+   * page token or page size is reported with the matching status.  The users are then written as they are mapped.
+   */
+  @RequestMapping(method = RequestMethod.GET,
+      params = "pageSize",
+      consumes = {MediaType.ALL_VALUE},
+      produces = {MediaType.APPLICATION_JSON_VALUE})
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.IDENTITY_MANAGEMENT)
+  public ResponseEntity<StreamingResponseBody> findPage(
+      @RequestParam("pageSize") final int pageSize,
+      @RequestParam(value = "pageToken", required = false) final String pageToken)
+  {
+    final UserService.Page page = this.service.findPage(pageSize, Optional.ofNullable(pageToken));
+
+    final StreamingResponseBody body = outputStream -> {
+      final JsonWriter writer = new JsonWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+      writer.beginObject();
+      writer.name("users");
+      writer.beginArray();
+      for (final User user : page.getUsers())
+        gson.toJson(user, User.class, writer);
+      writer.endArray();
+      writer.name("nextPageToken");
+      writer.value(page.getNextPageToken().orElse(null));
+      writer.endObject();
+      writer.flush();
+    };
+
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(body);
+  }
+
+  /**
+   * One page of the users holding the role, in user identifier order.  Below /users rather than /roles, so that it is
+   * covered by identity management, like the other ways of listing users.
+   */
+  @RequestMapping(method = RequestMethod.GET,
+      params = {"role", "pageSize"},
+      consumes = {MediaType.ALL_VALUE},
+      produces = {MediaType.APPLICATION_JSON_VALUE})
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.IDENTITY_MANAGEMENT)
+  public @ResponseBody ResponseEntity<UserPage> findPageForRole(
+      @RequestParam("role") final String roleIdentifier,
+      @RequestParam("pageSize") final int pageSize,
+      @RequestParam(value = "pageToken", required = false) final String pageToken)
+  {
+    return new ResponseEntity<>(
+        this.service.findPageForRole(roleIdentifier, pageSize, Optional.ofNullable(pageToken)), HttpStatus.OK);
+  }
+
   @RequestMapping(method = RequestMethod.POST,
           consumes = {MediaType.APPLICATION_JSON_VALUE},
           produces = {MediaType.APPLICATION_JSON_VALUE})
@@ -96,6 +164,19 @@ public class UserRestController {
     return new ResponseEntity<>(HttpStatus.ACCEPTED);
   }
 
+  /**
+   * Creates the users in a JSON array, or in newline delimited JSON objects.  The body is read as it arrives, and the
+   * users are created before the response is sent, so the report says for each row whether it was imported.
+   */
+  @RequestMapping(value = "/import", method = RequestMethod.POST,
+      consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE},
+      produces = {MediaType.APPLICATION_JSON_VALUE})
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.IDENTITY_MANAGEMENT)
+  public @ResponseBody ResponseEntity<UserImportReport> importUsers(final InputStream body)
+  {
+    return new ResponseEntity<>(importService.importUsers(body), HttpStatus.OK);
+  }
+
   private CreateUserWithSocialMediaCommand createSocialMediaCommand(UserWithPassword instance) {
     if (instance.getFirebaseToken() == null)
       throw ServiceException.badRequest("Should include firebaseToken in the body if you going to create user with social media.");
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import com.google.gson.Gson;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.ProducerCallback;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class AsyncEventPublisherTest {
+  private final JmsTemplate jmsTemplate = Mockito.mock(JmsTemplate.class);
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void fullQueueDropsAndCountsEvents() {
+    final AsyncEventPublisher testSubject = new AsyncEventPublisher(jmsTemplate, new Gson(), Mockito.mock(Logger.class),
+        2, 10, AsyncEventPublisher.OverflowPolicy.DROP);
+
+    testSubject.publish("op", "a");
+    testSubject.publish("op", "b");
+    testSubject.publish("op", "c");
+
+    Assert.assertEquals(2, testSubject.getQueueDepth());
+    Assert.assertEquals(1, testSubject.getDroppedCount());
+  }
+
+  @Test
+  public void queuedEventsAreSentInTheBackground() throws InterruptedException {
+    final AsyncEventPublisher testSubject = new AsyncEventPublisher(jmsTemplate, new Gson(), Mockito.mock(Logger.class),
+        10, 10, AsyncEventPublisher.OverflowPolicy.BLOCK);
+    TenantContextHolder.setIdentifier("mytenant");
+    testSubject.start();
+    try {
+      testSubject.publish("op", "a");
+      verify(jmsTemplate, timeout(5000)).execute(any(ProducerCallback.class));
+    }
+    finally {
+      testSubject.stop();
+    }
+  }
+}
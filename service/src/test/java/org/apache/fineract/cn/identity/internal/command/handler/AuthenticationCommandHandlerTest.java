@@ -20,6 +20,7 @@ package org.apache.fineract.cn.identity.internal.command.handler;
 
 import com.google.gson.Gson;
 import org.apache.fineract.cn.anubis.provider.TenantRsaKeyProvider;
+import org.apache.fineract.cn.anubis.security.AmitAuthenticationException;
 import org.apache.fineract.cn.anubis.token.TenantAccessTokenSerializer;
 import org.apache.fineract.cn.anubis.token.TenantRefreshTokenSerializer;
 import org.apache.fineract.cn.anubis.token.TokenDeserializationResult;
@@ -29,6 +30,7 @@ import org.apache.fineract.cn.crypto.SaltGenerator;
 import org.apache.fineract.cn.identity.internal.command.AuthenticationCommandResponse;
 import org.apache.fineract.cn.identity.internal.command.PasswordAuthenticationCommand;
 import org.apache.fineract.cn.identity.internal.command.RefreshTokenAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.firebase.FirebaseTokenVerifier;
 import org.apache.fineract.cn.identity.internal.repository.AllowedOperationType;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationCallEndpointSets;
 import org.apache.fineract.cn.identity.internal.repository.ApplicationPermissionUsers;
@@ -36,6 +38,7 @@ import org.apache.fineract.cn.identity.internal.repository.ApplicationPermission
 import org.apache.fineract.cn.identity.internal.repository.ApplicationSignatures;
 import org.apache.fineract.cn.identity.internal.repository.PermissionType;
 import org.apache.fineract.cn.identity.internal.repository.PermittableGroups;
+import org.apache.fineract.cn.identity.internal.repository.PrivateKeyCache;
 import org.apache.fineract.cn.identity.internal.repository.PrivateSignatureEntity;
 import org.apache.fineract.cn.identity.internal.repository.PrivateTenantInfoEntity;
 import org.apache.fineract.cn.identity.internal.repository.RoleEntity;
@@ -43,6 +46,7 @@ import org.apache.fineract.cn.identity.internal.repository.Roles;
 import org.apache.fineract.cn.identity.internal.repository.Signatures;
 import org.apache.fineract.cn.identity.internal.repository.Tenants;
 import org.apache.fineract.cn.identity.internal.repository.UserEntity;
+import org.apache.fineract.cn.identity.internal.repository.UserIdentifierFilter;
 import org.apache.fineract.cn.identity.internal.repository.Users;
 import org.apache.fineract.cn.lang.ApplicationName;
 import org.apache.fineract.cn.lang.DateConverter;
@@ -62,8 +66,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Matchers.*;
 import static org.mockito.Mockito.when;
@@ -81,13 +84,18 @@ public class AuthenticationCommandHandlerTest {
   private static final long REFRESH_TOKEN_TIME_TO_LIVE = 40;
   private static final int GRACE_PERIOD = 2;
   private static AuthenticationCommandHandler commandHandler;
+  private static Users users;
+  private static UserEntity rehashedUserEntity;
+  private static UserEntityCreator userEntityCreator;
 
   @BeforeClass()
   static public void setup()
   {
     RsaKeyPairFactory.KeyPairHolder keyPair = RsaKeyPairFactory.createKeyPair();
 
-    final Users users = Mockito.mock(Users.class);
+    users = Mockito.mock(Users.class);
+    final UserIdentifierFilter userIdentifierFilter = Mockito.mock(UserIdentifierFilter.class);
+    when(userIdentifierFilter.mightExist(Mockito.anyString())).thenReturn(true);
     final Roles roles = Mockito.mock(Roles.class);
     final PermittableGroups permittableGroups = Mockito.mock(PermittableGroups.class);
     final Signatures signatures = Mockito.mock(Signatures.class);
@@ -106,14 +114,22 @@ public class AuthenticationCommandHandlerTest {
     final ApplicationPermissions applicationPermissions = Mockito.mock(ApplicationPermissions.class);
     final ApplicationPermissionUsers applicationPermissionUsers = Mockito.mock(ApplicationPermissionUsers.class);
     final ApplicationCallEndpointSets applicationCallEndpointSets = Mockito.mock(ApplicationCallEndpointSets.class);
+    userEntityCreator = Mockito.mock(UserEntityCreator.class);
 
     commandHandler = new AuthenticationCommandHandler(
-        users, roles, permittableGroups, signatures, tenants,
+        users, userIdentifierFilter, roles, permittableGroups, signatures, tenants,
         hashGenerator,
         tenantAccessTokenSerializer, tenantRefreshTokenSerializer, tenantRsaKeyProvider,
-            applicationSignatures, applicationPermissions, applicationPermissionUsers, applicationCallEndpointSets,
-        jmsTemplate, applicationName,
-        gson, logger);
+            applicationPermissions, applicationPermissionUsers, applicationCallEndpointSets,
+        new RoleTokenPermissionCache(100, 60),
+        new PrivateKeyCache(),
+        new ApplicationPublicKeyCache(applicationSignatures, 100, 60),
+        new PasswordHashExecutor(1, 16),
+        userEntityCreator,
+        Mockito.mock(FirebaseTokenVerifier.class),
+        new AsyncEventPublisher(jmsTemplate, gson, logger, 100, 10, AsyncEventPublisher.OverflowPolicy.DROP),
+        applicationName,
+        logger);
 
     final PrivateTenantInfoEntity privateTenantInfoEntity = new PrivateTenantInfoEntity();
     privateTenantInfoEntity.setFixedSalt(ByteBuffer.wrap(new SaltGenerator().createRandomSalt()));
@@ -135,6 +151,12 @@ public class AuthenticationCommandHandlerTest {
     userEntity.setPasswordExpiresOn(dataStaxNow());
 
     when(users.get(USER_NAME)).thenReturn(Optional.of(userEntity));
+    when(users.getAsync(USER_NAME)).thenReturn(CompletableFuture.completedFuture(Optional.of(userEntity)));
+
+    rehashedUserEntity = new UserEntity();
+    rehashedUserEntity.setIdentifier(USER_NAME);
+    when(userEntityCreator.needsRehash(userEntity)).thenReturn(true);
+    when(userEntityCreator.rehash(eq(userEntity), eq(PASSWORD), any())).thenReturn(rehashedUserEntity);
 
     final List<PermissionType> permissionsList = new ArrayList<>();
     final RoleEntity roleEntity = new RoleEntity(ROLE, permissionsList);
@@ -168,6 +190,32 @@ public class AuthenticationCommandHandlerTest {
     Assert.assertNotNull(commandResponse);
   }
 
+  @Test
+  public void unknownUserCostsAPasswordCheck()
+  {
+    when(users.getAsync("nobody")).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+    final PasswordAuthenticationCommand command = new PasswordAuthenticationCommand("nobody", PASSWORD);
+
+    try {
+      commandHandler.process(command);
+      Assert.fail("An unknown user should not be authenticated.");
+    }
+    catch (final AmitAuthenticationException expected) {
+      //noinspection EmptyCatchBlock
+    }
+    Mockito.verify(userEntityCreator, Mockito.atLeastOnce()).verifyForUnknownUser(any(), any());
+  }
+
+  @Test
+  public void passwordAuthenticationRehashesOutdatedPassword()
+  {
+    final PasswordAuthenticationCommand command = new PasswordAuthenticationCommand(USER_NAME, PASSWORD);
+
+    commandHandler.process(command);
+    Mockito.verify(users, Mockito.atLeastOnce()).replaceHashIfUnchanged(any(), eq(rehashedUserEntity));
+    Mockito.verify(users, Mockito.never()).add(any());
+  }
+
   @Test
   public void correctRefreshTokenAuthentication()
   {
@@ -239,44 +287,38 @@ public class AuthenticationCommandHandlerTest {
   }
 
   @Test
-  public void intersectSets() {
-    final Set<AllowedOperationType> intersectionWithNull
-            = AuthenticationCommandHandler.intersectSets(new HashSet<>(), null);
-    Assert.assertTrue(intersectionWithNull.isEmpty());
-
-    final Set<AllowedOperationType> intersectionWithEqualSet
-            = AuthenticationCommandHandler.intersectSets(Collections.singleton(AllowedOperationType.CHANGE),
-            Collections.singleton(AllowedOperationType.CHANGE));
-    Assert.assertEquals(Collections.singleton(AllowedOperationType.CHANGE), intersectionWithEqualSet);
-
-    final Set<AllowedOperationType> intersectionWithAll
-            = AuthenticationCommandHandler.intersectSets(AllowedOperationType.ALL,
-            AllowedOperationType.ALL);
-    Assert.assertEquals(AllowedOperationType.ALL, intersectionWithAll);
-
-    final Set<AllowedOperationType> intersectionWithNonOverlappingSet
-            = AuthenticationCommandHandler.intersectSets(Collections.singleton(AllowedOperationType.DELETE),
-            Collections.singleton(AllowedOperationType.CHANGE));
-    Assert.assertTrue(intersectionWithNonOverlappingSet.isEmpty());
-
-    final Set<AllowedOperationType> intersectionWithSubSet
-            = AuthenticationCommandHandler.intersectSets(AllowedOperationType.ALL,
-            Collections.singleton(AllowedOperationType.CHANGE));
-    Assert.assertEquals(Collections.singleton(AllowedOperationType.CHANGE), intersectionWithSubSet);
-
-    final Set<AllowedOperationType> intersectionWithPartiallyOverlapping = AuthenticationCommandHandler.intersectSets(
-            Stream.of(AllowedOperationType.CHANGE, AllowedOperationType.DELETE).collect(Collectors.toSet()),
-            Stream.of(AllowedOperationType.CHANGE, AllowedOperationType.READ).collect(Collectors.toSet()));
-    Assert.assertEquals(Collections.singleton(AllowedOperationType.CHANGE), intersectionWithPartiallyOverlapping);
+  public void intersectMasks() {
+    Assert.assertEquals(0, AuthenticationCommandHandler.intersectMasks(0, null));
+
+    Assert.assertEquals(AllowedOperationType.CHANGE.mask(),
+            AuthenticationCommandHandler.intersectMasks(AllowedOperationType.CHANGE.mask(), AllowedOperationType.CHANGE.mask()));
+
+    final int all = AllowedOperationType.maskOf(AllowedOperationType.ALL);
+    Assert.assertEquals(AllowedOperationType.ALL,
+            AllowedOperationType.fromMask(AuthenticationCommandHandler.intersectMasks(all, all)));
+
+    Assert.assertEquals(0,
+            AuthenticationCommandHandler.intersectMasks(AllowedOperationType.DELETE.mask(), AllowedOperationType.CHANGE.mask()));
+
+    Assert.assertEquals(AllowedOperationType.CHANGE.mask(),
+            AuthenticationCommandHandler.intersectMasks(all, AllowedOperationType.CHANGE.mask()));
+
+    final int intersectionWithPartiallyOverlapping = AuthenticationCommandHandler.intersectMasks(
+            AllowedOperationType.CHANGE.mask() | AllowedOperationType.DELETE.mask(),
+            AllowedOperationType.CHANGE.mask() | AllowedOperationType.READ.mask());
+    Assert.assertEquals(Collections.singleton(AllowedOperationType.CHANGE),
+            AllowedOperationType.fromMask(intersectionWithPartiallyOverlapping));
   }
 
   @Test
   public void transformToSearchablePermissions()
   {
-    Map<String, Set<AllowedOperationType>> x = AuthenticationCommandHandler.transformToSearchablePermissions(Arrays.asList(
+    Map<String, Integer> x = AuthenticationCommandHandler.transformToSearchablePermissions(Arrays.asList(
             new PermissionType("x", new HashSet<>(AllowedOperationType.ALL)),
-            new PermissionType("y", new HashSet<>(Collections.singletonList(AllowedOperationType.CHANGE)))));
+            new PermissionType("y", new HashSet<>(Collections.singletonList(AllowedOperationType.CHANGE))),
+            new PermissionType("y", new HashSet<>(Collections.singletonList(AllowedOperationType.READ)))));
 
-    Assert.assertEquals(AllowedOperationType.ALL, x.get("x"));
+    Assert.assertEquals(AllowedOperationType.ALL, AllowedOperationType.fromMask(x.get("x")));
+    Assert.assertEquals(AllowedOperationType.CHANGE.mask() | AllowedOperationType.READ.mask(), (int) x.get("y"));
   }
 }
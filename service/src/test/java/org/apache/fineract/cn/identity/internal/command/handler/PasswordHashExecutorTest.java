@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.concurrent.CountDownLatch;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PasswordHashExecutorTest {
+  private final PasswordHashExecutor testSubject = new PasswordHashExecutor(1, 1);
+
+  @After
+  public void shutdown() {
+    testSubject.shutdown();
+  }
+
+  @Test
+  public void callReturnsResultOfHashing() {
+    Assert.assertEquals("hashed", testSubject.call(() -> "hashed"));
+  }
+
+  @Test
+  public void callPropagatesServiceException() {
+    try {
+      testSubject.call(() -> {
+        throw ServiceException.badRequest("bad");
+      });
+      Assert.fail("Exception thrown while hashing should reach the caller.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(400, e.serviceError().getCode());
+    }
+  }
+
+  @Test
+  public void saturatedExecutorRejectsWithServiceUnavailable() throws InterruptedException {
+    final CountDownLatch running = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    testSubject.submit(() -> {
+      running.countDown();
+      awaitQuietly(release);
+      return null;
+    });
+    running.await();
+    testSubject.submit(() -> null);
+
+    try {
+      testSubject.submit(() -> null);
+      Assert.fail("Pool thread and queue are both occupied.  This should've been rejected.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(503, e.serviceError().getCode());
+    }
+    finally {
+      release.countDown();
+    }
+  }
+
+  private static void awaitQuietly(final CountDownLatch latch) {
+    try {
+      latch.await();
+    }
+    catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.fineract.cn.identity.internal.util.IdentityConstants;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PasswordHashPolicyTest {
+  @Test
+  public void iterationsScaleWithTarget() {
+    final long nanosPerBaseHash = TimeUnit.MILLISECONDS.toNanos(5);
+    Assert.assertEquals(IdentityConstants.ITERATION_COUNT * 10,
+        PasswordHashPolicy.iterationsFor(50, nanosPerBaseHash, Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void iterationsNeverFallBelowDefault() {
+    Assert.assertEquals(IdentityConstants.ITERATION_COUNT,
+        PasswordHashPolicy.iterationsFor(1, TimeUnit.SECONDS.toNanos(1), Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void iterationsAreCappedAtMaximum() {
+    Assert.assertEquals(100_000, PasswordHashPolicy.iterationsFor(1000, 1000, 100_000));
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.command.handler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.fineract.cn.anubis.api.v1.domain.AllowedOperation;
+import org.apache.fineract.cn.anubis.api.v1.domain.TokenPermission;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenPermissionAccumulatorTest {
+  @Test
+  public void addAllMergesPathsWithoutModifyingInput() {
+    final TokenPermission read = new TokenPermission("x/y", Collections.singleton(AllowedOperation.READ));
+    final TokenPermission change = new TokenPermission("x/y", Collections.singleton(AllowedOperation.CHANGE));
+    final TokenPermission other = new TokenPermission("x/z", Collections.singleton(AllowedOperation.DELETE));
+
+    final TokenPermissionAccumulator testSubject = new TokenPermissionAccumulator();
+    testSubject.addAll(Arrays.asList(read, change, other));
+    final Set<TokenPermission> merged = testSubject.toTokenPermissions();
+
+    Assert.assertEquals(2, merged.size());
+    Assert.assertTrue(merged.contains(new TokenPermission("x/y",
+        new HashSet<>(Arrays.asList(AllowedOperation.READ, AllowedOperation.CHANGE)))));
+    Assert.assertTrue(merged.contains(other));
+    Assert.assertEquals(Collections.singleton(AllowedOperation.READ), read.getAllowedOperations());
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingFirebaseTokenVerifierTest {
+  private static final Instant NOW = Instant.parse("2020-01-01T00:00:00Z");
+
+  @Test
+  public void verifiedTokenIsRemembered() throws FirebaseTokenVerificationException {
+    final FirebaseTokenVerifier delegate = Mockito.mock(FirebaseTokenVerifier.class);
+    final VerifiedFirebaseToken token = new VerifiedFirebaseToken("uid", "ahmes@example.com", NOW.plusSeconds(60));
+    when(delegate.verify("token")).thenReturn(token);
+    final CachingFirebaseTokenVerifier testSubject = new CachingFirebaseTokenVerifier(delegate, 100, 3600,
+        Clock.fixed(NOW, ZoneOffset.UTC));
+
+    Assert.assertEquals(token, testSubject.verify("token"));
+    Assert.assertEquals(token, testSubject.verify("token"));
+
+    verify(delegate, times(1)).verify("token");
+  }
+
+  @Test
+  public void expiredTokenIsVerifiedAgain() throws FirebaseTokenVerificationException {
+    final FirebaseTokenVerifier delegate = Mockito.mock(FirebaseTokenVerifier.class);
+    final VerifiedFirebaseToken token = new VerifiedFirebaseToken("uid", "ahmes@example.com", NOW.plusSeconds(60));
+    when(delegate.verify("token")).thenReturn(token);
+    final Clock clock = Mockito.mock(Clock.class);
+    when(clock.instant()).thenReturn(NOW, NOW.plusSeconds(61));
+    final CachingFirebaseTokenVerifier testSubject = new CachingFirebaseTokenVerifier(delegate, 100, 3600, clock);
+
+    testSubject.verify("token");
+    testSubject.verify("token");
+
+    verify(delegate, times(2)).verify("token");
+  }
+
+  @Test
+  public void failedVerificationIsNotRemembered() throws FirebaseTokenVerificationException {
+    final FirebaseTokenVerifier delegate = Mockito.mock(FirebaseTokenVerifier.class);
+    when(delegate.verify("token")).thenThrow(new FirebaseTokenVerificationException("bad"));
+    final CachingFirebaseTokenVerifier testSubject = new CachingFirebaseTokenVerifier(delegate, 100, 3600,
+        Clock.fixed(NOW, ZoneOffset.UTC));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        testSubject.verify("token");
+        Assert.fail("Verification should fail.");
+      }
+      catch (final FirebaseTokenVerificationException ignored) {
+        //Expected.
+      }
+    }
+
+    verify(delegate, times(2)).verify("token");
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import org.apache.fineract.cn.lang.ServiceException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+public class FirebaseInitializerTest {
+  @Test
+  public void missingCredentialsOnlyMakeFirebaseUnavailable() {
+    final FirebaseInitializer testSubject = new FirebaseInitializer("", "", 1000, 0, Mockito.mock(Logger.class));
+
+    try {
+      testSubject.awaitApp();
+      Assert.fail("Firebase should not be available without credentials.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(503, e.serviceError().getCode());
+    }
+    Assert.assertFalse(testSubject.isReady());
+    Assert.assertTrue(testSubject.getInitializationMillis() >= 0);
+  }
+
+  @Test
+  public void failedInitializationIsRetriedAfterTheRetryInterval() {
+    final FirebaseInitializer retrying = new FirebaseInitializer("", "", 1000, 0, Mockito.mock(Logger.class));
+    final FirebaseInitializer waiting = new FirebaseInitializer("", "", 1000, 3600000, Mockito.mock(Logger.class));
+
+    for (int i = 0; i < 2; i++) {
+      awaitUnavailable(retrying);
+      awaitUnavailable(waiting);
+    }
+
+    Assert.assertEquals(2, retrying.getAttempts());
+    Assert.assertEquals(1, waiting.getAttempts());
+  }
+
+  @Test
+  public void nothingHappensBeforeStartOrFirstUse() {
+    final FirebaseInitializer testSubject = new FirebaseInitializer("", "", 1000, 0, Mockito.mock(Logger.class));
+
+    Assert.assertFalse(testSubject.isReady());
+    Assert.assertEquals(-1, testSubject.getInitializationMillis());
+    Assert.assertEquals(0, testSubject.getAttempts());
+  }
+
+  private static void awaitUnavailable(final FirebaseInitializer testSubject) {
+    try {
+      testSubject.awaitApp();
+      Assert.fail("Firebase should not be available without credentials.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(503, e.serviceError().getCode());
+    }
+  }
+}
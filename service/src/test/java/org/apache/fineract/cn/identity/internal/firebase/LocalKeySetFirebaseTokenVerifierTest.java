@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.firebase;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+public class LocalKeySetFirebaseTokenVerifierTest {
+  private static final String PROJECT_ID = "identity-test";
+  private static KeyPair keyPair;
+  private static KeyPair otherKeyPair;
+
+  @BeforeClass
+  public static void generateKeys() throws NoSuchAlgorithmException {
+    final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    keyPair = generator.generateKeyPair();
+    otherKeyPair = generator.generateKeyPair();
+  }
+
+  @Test
+  public void validTokenIsVerified() throws FirebaseTokenVerificationException {
+    final Instant expiration = Instant.now().plusSeconds(600).withNano(0);
+    final VerifiedFirebaseToken token = newTestSubject().verify(token("key1", keyPair, PROJECT_ID, expiration));
+
+    Assert.assertEquals("uid", token.getUid());
+    Assert.assertEquals("ahmes@example.com", token.getEmail());
+    Assert.assertEquals(expiration, token.getExpiration());
+  }
+
+  @Test(expected = FirebaseTokenVerificationException.class)
+  public void tokenSignedWithOtherKeyIsRefused() throws FirebaseTokenVerificationException {
+    newTestSubject().verify(token("key1", otherKeyPair, PROJECT_ID, Instant.now().plusSeconds(600)));
+  }
+
+  @Test(expected = FirebaseTokenVerificationException.class)
+  public void tokenWithUnknownKeyIdIsRefused() throws FirebaseTokenVerificationException {
+    newTestSubject().verify(token("key2", keyPair, PROJECT_ID, Instant.now().plusSeconds(600)));
+  }
+
+  @Test(expected = FirebaseTokenVerificationException.class)
+  public void tokenForOtherProjectIsRefused() throws FirebaseTokenVerificationException {
+    newTestSubject().verify(token("key1", keyPair, "other-project", Instant.now().plusSeconds(600)));
+  }
+
+  @Test(expected = FirebaseTokenVerificationException.class)
+  public void expiredTokenIsRefused() throws FirebaseTokenVerificationException {
+    newTestSubject().verify(token("key1", keyPair, PROJECT_ID, Instant.now().minusSeconds(600)));
+  }
+
+  private static LocalKeySetFirebaseTokenVerifier newTestSubject() {
+    return new LocalKeySetFirebaseTokenVerifier(PROJECT_ID,
+        () -> Collections.singletonMap("key1", keyPair.getPublic()),
+        3600, Mockito.mock(Logger.class));
+  }
+
+  private static String token(final String keyId, final KeyPair signer, final String projectId,
+                              final Instant expiration) {
+    return Jwts.builder()
+        .setHeaderParam("kid", keyId)
+        .setAudience(projectId)
+        .setIssuer("https://securetoken.google.com/" + projectId)
+        .setSubject("uid")
+        .setIssuedAt(Date.from(Instant.now().minusSeconds(1200)))
+        .setExpiration(Date.from(expiration))
+        .claim("email", "ahmes@example.com")
+        .signWith(SignatureAlgorithm.RS256, signer.getPrivate())
+        .compact();
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ApplicationPermissionUsersTest {
+  private Session session;
+  private ApplicationPermissionUsers testSubject;
+
+  @Before
+  public void setup() {
+    final CassandraSessionProvider cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    session = Mockito.mock(Session.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+    final BoundStatement boundStatement = Mockito.mock(BoundStatement.class);
+    final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+    when(preparedStatement.bind(Mockito.<Object>anyVararg())).thenReturn(boundStatement);
+    when(session.prepare(any(RegularStatement.class))).thenReturn(preparedStatement);
+
+    final Row enabledRow = Mockito.mock(Row.class);
+    when(enabledRow.getString(ApplicationPermissionUsers.PERMITTABLE_GROUP_IDENTIFIER_COLUMN)).thenReturn("a");
+    when(enabledRow.getBool(ApplicationPermissionUsers.ENABLED_COLUMN)).thenReturn(true);
+    final Row disabledRow = Mockito.mock(Row.class);
+    when(disabledRow.getString(ApplicationPermissionUsers.PERMITTABLE_GROUP_IDENTIFIER_COLUMN)).thenReturn("b");
+    when(disabledRow.getBool(ApplicationPermissionUsers.ENABLED_COLUMN)).thenReturn(false);
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    when(resultSet.iterator()).thenAnswer(x -> Arrays.asList(enabledRow, disabledRow).iterator());
+    when(session.execute(any(Statement.class))).thenReturn(resultSet);
+
+    testSubject = new ApplicationPermissionUsers(cassandraSessionProvider,
+        Mockito.mock(TenantAwareEntityTemplate.class), new PreparedStatements(cassandraSessionProvider), 100, 60, 2);
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void flagsForAllGroupsAreReadInOneQuery() {
+    final Set<String> enabled = testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b", "c"));
+
+    Assert.assertEquals(Collections.singleton("a"), enabled);
+    verify(session, times(1)).execute(any(Statement.class));
+  }
+
+  @Test
+  public void cachedFlagsAreNotReadAgain() {
+    testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b", "c"));
+    final Set<String> enabled = testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "c"));
+
+    Assert.assertEquals(Collections.singleton("a"), enabled);
+    verify(session, times(1)).execute(any(Statement.class));
+  }
+
+  @Test
+  public void settingAFlagDropsCachedFlags() {
+    testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b"));
+    testSubject.setEnabled("app", "b", "user", true);
+    testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b"));
+
+    verify(session, times(2)).execute(any(Statement.class));
+  }
+
+  @Test
+  public void bulkFlagsAreWrittenInBatchesAndDropCachedFlags() {
+    when(session.executeAsync(any(Statement.class))).thenReturn(Mockito.mock(ResultSetFuture.class));
+    testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b"));
+
+    testSubject.setEnabled("app", Arrays.asList(
+        new ApplicationPermissionUsersEntity("app", "a", "user", true),
+        new ApplicationPermissionUsersEntity("app", "b", "user", true),
+        new ApplicationPermissionUsersEntity("app", "a", "user2", false)));
+    testSubject.enabledPermittableGroups("app", "user", Arrays.asList("a", "b"));
+
+    verify(session, times(2)).executeAsync(any(BatchStatement.class));
+    verify(session, times(2)).execute(any(Statement.class));
+  }
+
+  @Test
+  public void noGroupsNeedNoQuery() {
+    Assert.assertEquals(new HashSet<String>(), testSubject.enabledPermittableGroups("app", "user", Collections.emptyList()));
+    verify(session, times(0)).execute(any(Statement.class));
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.mapping.Mapper;
+import com.datastax.driver.mapping.Result;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
+import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ApplicationPermissionsTest {
+  private Session session;
+  private ApplicationPermissions testSubject;
+
+  @Before
+  public void setup() {
+    final CassandraSessionProvider cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    session = Mockito.mock(Session.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+    final BoundStatement boundStatement = Mockito.mock(BoundStatement.class);
+    final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+    when(preparedStatement.bind(Mockito.<Object>anyVararg())).thenReturn(boundStatement);
+    when(session.prepare(any(RegularStatement.class))).thenReturn(preparedStatement);
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    when(session.execute(any(Statement.class))).thenReturn(resultSet);
+
+    final ApplicationPermissionEntity first = new ApplicationPermissionEntity("app",
+        new PermissionType("x", Collections.singleton(AllowedOperationType.READ)));
+    final ApplicationPermissionEntity second = new ApplicationPermissionEntity("app",
+        new PermissionType("y", Collections.singleton(AllowedOperationType.CHANGE)));
+    @SuppressWarnings("unchecked") final Result<ApplicationPermissionEntity> result = Mockito.mock(Result.class);
+    when(result.all()).thenReturn(Arrays.asList(first, second));
+    @SuppressWarnings("unchecked") final Mapper<ApplicationPermissionEntity> mapper = Mockito.mock(Mapper.class);
+    when(mapper.map(resultSet)).thenReturn(result);
+    final TenantAwareCassandraMapperProvider mapperProvider = Mockito.mock(TenantAwareCassandraMapperProvider.class);
+    when(mapperProvider.getMapper(ApplicationPermissionEntity.class)).thenReturn(mapper);
+
+    testSubject = new ApplicationPermissions(cassandraSessionProvider,
+        Mockito.mock(TenantAwareEntityTemplate.class), mapperProvider, new PreparedStatements(cassandraSessionProvider),
+        100, 60);
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void partitionIsReadOnceForRepeatedTokenIssuance() {
+    final Map<String, PermissionType> first = testSubject.getPermissionsByGroupForApplication("app");
+    final Map<String, PermissionType> second = testSubject.getPermissionsByGroupForApplication("app");
+
+    Assert.assertEquals(2, first.size());
+    Assert.assertEquals(Collections.singleton(AllowedOperationType.CHANGE), second.get("y").getAllowedOperations());
+    verify(session, times(1)).execute(any(Statement.class));
+  }
+
+  @Test
+  public void addingAPermissionRereadsThePartition() {
+    testSubject.getPermissionsByGroupForApplication("app");
+    testSubject.add(new ApplicationPermissionEntity("app",
+        new PermissionType("z", Collections.singleton(AllowedOperationType.DELETE))));
+    testSubject.getPermissionsByGroupForApplication("app");
+
+    verify(session, times(2)).execute(any(Statement.class));
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.cassandra.core.TenantAwareCassandraMapperProvider;
+import org.apache.fineract.cn.cassandra.core.TenantAwareEntityTemplate;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ApplicationSignaturesTest {
+  private PreparedStatements preparedStatements;
+  private Applications applications;
+  private ApplicationSignatures testSubject;
+
+  @Before
+  public void setup() {
+    preparedStatements = Mockito.mock(PreparedStatements.class);
+    applications = Mockito.mock(Applications.class);
+    testSubject = newApplicationSignatures();
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void existingApplicationIsLookedUpOnce() {
+    final ResultSet found = resultOf(Mockito.mock(Row.class));
+    when(preparedStatements.execute(any(RegularStatement.class), Mockito.<Object>anyVararg())).thenReturn(found);
+
+    Assert.assertTrue(testSubject.signaturesExistForApplication("office-v1"));
+    Assert.assertTrue(testSubject.signaturesExistForApplication("office-v1"));
+
+    verify(preparedStatements, times(1)).execute(any(RegularStatement.class), Mockito.<Object>anyVararg());
+  }
+
+  @Test
+  public void missingApplicationIsNotCached() {
+    final ResultSet notFound = resultOf();
+    when(preparedStatements.execute(any(RegularStatement.class), Mockito.<Object>anyVararg())).thenReturn(notFound);
+
+    Assert.assertFalse(testSubject.signaturesExistForApplication("office-v1"));
+    final ApplicationSignatureEntity entity = new ApplicationSignatureEntity();
+    entity.setApplicationIdentifier("office-v1");
+    testSubject.add(entity);
+
+    Assert.assertTrue(testSubject.signaturesExistForApplication("office-v1"));
+    verify(applications).add("office-v1");
+  }
+
+  @Test
+  public void applicationsAreListedFromTheRegistryAlone() {
+    when(applications.getAll()).thenReturn(Arrays.asList("office-v1", "customer-v1"));
+
+    Assert.assertEquals(Arrays.asList("office-v1", "customer-v1"), testSubject.getAllApplicationIdentifiers());
+    verify(preparedStatements, never()).execute(any(RegularStatement.class), Mockito.<Object>anyVararg());
+  }
+
+  @Test
+  public void missingRegistryListsNoApplications() {
+    when(applications.getAll()).thenThrow(new InvalidQueryException("unconfigured table isis_applications"));
+
+    Assert.assertEquals(Collections.emptyList(), testSubject.getAllApplicationIdentifiers());
+    verify(preparedStatements, never()).execute(any(RegularStatement.class), Mockito.<Object>anyVararg());
+    verify(applications, never()).add(any());
+  }
+
+  @Test
+  public void backfillRegistersSignedApplicationsAndDropsDeletedOnes() {
+    when(applications.getAll()).thenReturn(Arrays.asList("office-v1", "customer-v1"));
+    final Row office = Mockito.mock(Row.class);
+    when(office.getString(ApplicationSignatures.APPLICATION_IDENTIFIER_COLUMN)).thenReturn("office-v1");
+    final Row deposit = Mockito.mock(Row.class);
+    when(deposit.getString(ApplicationSignatures.APPLICATION_IDENTIFIER_COLUMN)).thenReturn("deposit-v1");
+    final ResultSet signatures = resultOf(office, deposit);
+    when(preparedStatements.execute(any(RegularStatement.class), Mockito.<Object>anyVararg())).thenReturn(signatures);
+
+    testSubject.backfillRegistry();
+
+    verify(applications).buildTable();
+    verify(applications).add("deposit-v1");
+    verify(applications, never()).add("office-v1");
+    verify(applications).delete("customer-v1");
+  }
+
+  private ApplicationSignatures newApplicationSignatures() {
+    final CassandraSessionProvider cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(Mockito.mock(Session.class));
+    return new ApplicationSignatures(cassandraSessionProvider,
+        Mockito.mock(TenantAwareEntityTemplate.class), Mockito.mock(TenantAwareCassandraMapperProvider.class),
+        preparedStatements, applications, 100, 60, Mockito.mock(Logger.class), 0);
+  }
+
+  private static ResultSet resultOf(final Row... rows) {
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    when(resultSet.all()).thenReturn(Arrays.asList(rows));
+    when(resultSet.one()).thenReturn(rows.length == 0 ? null : rows[0]);
+    return resultSet;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.querybuilder.QueryBuilder;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PreparedStatementsTest {
+  private static final RegularStatement SELECT = QueryBuilder.select().from("x")
+      .where(QueryBuilder.eq("y", QueryBuilder.bindMarker()));
+
+  private CassandraSessionProvider cassandraSessionProvider;
+  private PreparedStatements testSubject;
+
+  @Before
+  public void setup() {
+    cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    testSubject = new PreparedStatements(cassandraSessionProvider);
+  }
+
+  @Test
+  public void statementIsPreparedOncePerSession() {
+    final Session session = mockSession();
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+
+    testSubject.bind(SELECT, "a");
+    testSubject.bind(SELECT, "b");
+    testSubject.execute(SELECT, "c");
+
+    verify(session, times(1)).prepare(any(RegularStatement.class));
+  }
+
+  @Test
+  public void eachTenantSessionPreparesItsOwnStatement() {
+    final Session first = mockSession();
+    final Session second = mockSession();
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(first, second);
+
+    testSubject.bind(SELECT, "a");
+    testSubject.bind(SELECT, "a");
+
+    verify(first, times(1)).prepare(any(RegularStatement.class));
+    verify(second, times(1)).prepare(any(RegularStatement.class));
+  }
+
+  @Test
+  public void failedPreparationIsRetried() {
+    final Session session = mockSession();
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+    final PreparedStatement preparedStatement = session.prepare(SELECT);
+    when(session.prepare(any(RegularStatement.class)))
+        .thenThrow(new IllegalStateException("unconfigured table x"))
+        .thenReturn(preparedStatement);
+
+    try {
+      testSubject.bind(SELECT, "a");
+      Assert.fail("The first preparation should fail.");
+    }
+    catch (final IllegalStateException ignored) {
+      //Expected.
+    }
+
+    Assert.assertNotNull(testSubject.bind(SELECT, "a"));
+  }
+
+  private static Session mockSession() {
+    final Session session = Mockito.mock(Session.class);
+    final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+    when(preparedStatement.bind(Mockito.<Object>anyVararg())).thenReturn(Mockito.mock(BoundStatement.class));
+    when(session.prepare(any(RegularStatement.class))).thenReturn(preparedStatement);
+    return session;
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import java.security.PrivateKey;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.apache.fineract.cn.lang.security.RsaKeyPairFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrivateKeyCacheTest {
+  private PrivateSignatureEntity privateSignatureEntity;
+
+  @Before
+  public void setup() {
+    final RsaKeyPairFactory.KeyPairHolder keyPair = RsaKeyPairFactory.createKeyPair();
+    privateSignatureEntity = new PrivateSignatureEntity();
+    privateSignatureEntity.setKeyTimestamp(keyPair.getTimestamp());
+    privateSignatureEntity.setPrivateKeyExp(keyPair.getPrivateKeyExp());
+    privateSignatureEntity.setPrivateKeyMod(keyPair.getPrivateKeyMod());
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void keyIsBuiltOncePerTimestamp() {
+    final PrivateKeyCache testSubject = new PrivateKeyCache();
+
+    final PrivateKey first = testSubject.get(privateSignatureEntity);
+    final PrivateKey second = testSubject.get(privateSignatureEntity);
+
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, testSubject.getMissCount());
+    Assert.assertEquals(1, testSubject.getHitCount());
+  }
+
+  @Test
+  public void invalidatedKeyIsRebuilt() {
+    final PrivateKeyCache testSubject = new PrivateKeyCache();
+
+    final PrivateKey first = testSubject.get(privateSignatureEntity);
+    testSubject.invalidate(privateSignatureEntity.getKeyTimestamp());
+    final PrivateKey second = testSubject.get(privateSignatureEntity);
+
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(first, second);
+    Assert.assertEquals(2, testSubject.getMissCount());
+  }
+
+  @Test
+  public void keysAreNotSharedBetweenTenants() {
+    final PrivateKeyCache testSubject = new PrivateKeyCache();
+
+    final PrivateKey first = testSubject.get(privateSignatureEntity);
+    TenantContextHolder.clear();
+    TenantContextHolder.setIdentifier("othertenant");
+    final PrivateKey second = testSubject.get(privateSignatureEntity);
+
+    Assert.assertNotSame(first, second);
+    Assert.assertEquals(2, testSubject.getMissCount());
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Predicate;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.apache.fineract.cn.lang.security.RsaKeyPairFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SignaturesTest {
+  private PreparedStatements preparedStatements;
+
+  @Before
+  public void setup() {
+    preparedStatements = Mockito.mock(PreparedStatements.class);
+    when(preparedStatements.execute(Mockito.any(RegularStatement.class), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf());
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void latestValidKeyIsTheFirstValidKeyOfTheKeySet() {
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsKeySet), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf(key("2017_03", true), key("2017_02", true), key("2017_01", false)));
+
+    final Signatures testSubject = newSignatures(true);
+
+    Assert.assertEquals(Arrays.asList("2017_02", "2017_03"), testSubject.getAllKeyTimestamps());
+    Assert.assertEquals("2017_03", testSubject.getPrivateSignature()
+        .map(PrivateSignatureEntity::getKeyTimestamp).orElse(null));
+  }
+
+  @Test
+  public void emptyKeySetIsMigratedFromLegacyTable() {
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsKeySet), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf())
+        .thenAnswer(x -> resultOf(key("2017_02", true), key("2017_01", false)));
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsLegacyTable), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf(key("2017_01", false), key("2017_02", true)));
+
+    final Signatures testSubject = newSignatures(true);
+
+    Assert.assertEquals(Collections.singletonList("2017_02"), testSubject.getAllKeyTimestamps());
+    verify(preparedStatements, times(2)).execute(
+        statementThat(x -> x.contains(Signatures.KEY_SET_TABLE_NAME) && x.contains("IF NOT EXISTS")),
+        Mockito.<Object>anyVararg());
+  }
+
+  @Test
+  public void legacyChangesAreMergedIntoNonEmptyKeySet() {
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsKeySet), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf(key("2017_02", true), key("2017_01", true)))
+        .thenAnswer(x -> resultOf(key("2017_03", true), key("2017_02", true), key("2017_01", false)));
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsLegacyTable), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf(key("2017_01", false), key("2017_02", true), key("2017_03", true)));
+
+    final Signatures testSubject = newSignatures(true);
+
+    Assert.assertEquals(Arrays.asList("2017_02", "2017_03"), testSubject.getAllKeyTimestamps());
+    verify(preparedStatements, times(1)).execute(
+        statementThat(x -> x.contains(Signatures.KEY_SET_TABLE_NAME) && x.contains("IF NOT EXISTS")),
+        Mockito.eq(Signatures.KEY_SET), Mockito.eq("2017_03"), Mockito.eq(true),
+        Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any());
+    verify(preparedStatements, times(1)).execute(
+        statementThat(x -> x.startsWith("UPDATE " + Signatures.KEY_SET_TABLE_NAME)),
+        Mockito.eq(Signatures.KEY_SET), Mockito.eq("2017_01"));
+  }
+
+  @Test
+  public void keySetIsNotMergedOnceLegacyTableIsDisabled() {
+    when(preparedStatements.execute(statementThat(SignaturesTest::selectsKeySet), Mockito.<Object>anyVararg()))
+        .thenAnswer(x -> resultOf(key("2017_02", true)));
+
+    final Signatures testSubject = newSignatures(false);
+
+    Assert.assertEquals(Collections.singletonList("2017_02"), testSubject.getAllKeyTimestamps());
+    verify(preparedStatements, never()).execute(
+        statementThat(SignaturesTest::selectsLegacyTable), Mockito.<Object>anyVararg());
+  }
+
+  @Test
+  public void disabledLegacyTableIsNotWritten() {
+    final Signatures testSubject = newSignatures(false);
+
+    testSubject.add(RsaKeyPairFactory.createKeyPair());
+
+    verify(preparedStatements, times(1)).execute(
+        statementThat(x -> x.startsWith("INSERT INTO " + Signatures.KEY_SET_TABLE_NAME)),
+        Mockito.<Object>anyVararg());
+    verify(preparedStatements, never()).execute(
+        statementThat(x -> x.startsWith("INSERT INTO " + Signatures.TABLE_NAME + " ")),
+        Mockito.<Object>anyVararg());
+  }
+
+  private Signatures newSignatures(final boolean legacyTableEnabled) {
+    final CassandraSessionProvider cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(Mockito.mock(Session.class));
+    return new Signatures(cassandraSessionProvider, preparedStatements, new PrivateKeyCache(),
+        Mockito.mock(Logger.class), 60, legacyTableEnabled);
+  }
+
+  private static boolean selectsKeySet(final String query) {
+    return query.startsWith("SELECT * FROM " + Signatures.KEY_SET_TABLE_NAME)
+        && !query.contains(Signatures.KEY_TIMESTAMP_COLUMN + "=");
+  }
+
+  private static boolean selectsLegacyTable(final String query) {
+    return query.startsWith("SELECT * FROM " + Signatures.TABLE_NAME + ";");
+  }
+
+  private static RegularStatement statementThat(final Predicate<String> predicate) {
+    return argThat(new ArgumentMatcher<RegularStatement>() {
+      @Override
+      public boolean matches(final Object argument) {
+        return argument instanceof RegularStatement && predicate.test(((RegularStatement) argument).getQueryString());
+      }
+    });
+  }
+
+  private static Row key(final String keyTimestamp, final boolean valid) {
+    final Row row = Mockito.mock(Row.class);
+    when(row.getString(Signatures.KEY_TIMESTAMP_COLUMN)).thenReturn(keyTimestamp);
+    when(row.getBool(Signatures.VALID_COLUMN)).thenReturn(valid);
+    when(row.getVarint(Mockito.anyString())).thenReturn(BigInteger.ONE);
+    return row;
+  }
+
+  private static ResultSet resultOf(final Row... rows) {
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    when(resultSet.all()).thenReturn(Arrays.asList(rows));
+    when(resultSet.one()).thenReturn(rows.length == 0 ? null : rows[0]);
+    return resultSet;
+  }
+}
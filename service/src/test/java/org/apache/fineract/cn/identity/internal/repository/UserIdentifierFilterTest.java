@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import java.util.Arrays;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.when;
+
+public class UserIdentifierFilterTest {
+  private CassandraSessionProvider cassandraSessionProvider;
+  private UserIdentifierFilter testSubject;
+
+  @Before
+  public void setup() {
+    cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    final Session session = Mockito.mock(Session.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+    final BoundStatement boundStatement = Mockito.mock(BoundStatement.class);
+    final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+    when(preparedStatement.bind(Mockito.<Object>anyVararg())).thenReturn(boundStatement);
+    when(session.prepare(any(RegularStatement.class))).thenReturn(preparedStatement);
+    when(boundStatement.setFetchSize(anyInt())).thenReturn(boundStatement);
+    final ResultSet resultSet = Mockito.mock(ResultSet.class);
+    when(session.execute(any(Statement.class))).thenReturn(resultSet);
+    final Row antony = Mockito.mock(Row.class);
+    when(antony.getString(Users.IDENTIFIER_COLUMN)).thenReturn("antony");
+    final Row ahmes = Mockito.mock(Row.class);
+    when(ahmes.getString(Users.IDENTIFIER_COLUMN)).thenReturn("ahmes");
+    when(resultSet.iterator()).thenAnswer(invocation -> Arrays.asList(antony, ahmes).iterator());
+
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+    if (testSubject != null)
+      testSubject.stopBuilding();
+  }
+
+  @Test
+  public void disabledFilterLetsEveryUserThrough() {
+    testSubject = newFilter(false, true);
+
+    Assert.assertTrue(testSubject.mightExist("nobody"));
+    Mockito.verifyZeroInteractions(cassandraSessionProvider);
+  }
+
+  @Test
+  public void builtFilterRefusesUnknownUsers() throws InterruptedException {
+    testSubject = newFilter(true, true);
+
+    Assert.assertTrue("Every user might exist before the filter is built.", testSubject.mightExist("nobody"));
+    awaitBuilt();
+
+    Assert.assertTrue(testSubject.mightExist("antony"));
+    Assert.assertTrue(testSubject.mightExist("ahmes"));
+    Assert.assertFalse(testSubject.mightExist("nobody"));
+  }
+
+  @Test
+  public void untrustedMissesLetUnknownUsersThrough() throws InterruptedException {
+    testSubject = newFilter(true, false);
+    testSubject.mightExist("nobody");
+    awaitBuilt();
+
+    Assert.assertTrue("A user created on another instance might not be in the filter yet.",
+        testSubject.mightExist("nobody"));
+    Assert.assertEquals(1, metric("identity.users.bloomFilter.misses"));
+  }
+
+  @Test
+  public void addedUsersAreLetThrough() throws InterruptedException {
+    testSubject = newFilter(true, true);
+    testSubject.mightExist("nobody");
+    awaitBuilt();
+
+    testSubject.add("cleopatra");
+
+    Assert.assertTrue(testSubject.mightExist("cleopatra"));
+  }
+
+  private UserIdentifierFilter newFilter(final boolean enabled, final boolean trustMisses) {
+    final UserIdentifierFilter ret = new UserIdentifierFilter(cassandraSessionProvider,
+        new PreparedStatements(cassandraSessionProvider), Mockito.mock(Logger.class),
+        enabled, 1000, 0.001, 100, 3600, trustMisses);
+    ret.startBuilding();
+    return ret;
+  }
+
+  private void awaitBuilt() throws InterruptedException {
+    for (int i = 0; i < 100 && metric("identity.users.bloomFilter.builds") == 0; i++)
+      Thread.sleep(50);
+  }
+
+  private long metric(final String name) {
+    return testSubject.metrics().stream()
+        .filter(x -> x.getName().equals(name))
+        .map(x -> x.getValue().longValue())
+        .findAny().orElse(0L);
+  }
+}
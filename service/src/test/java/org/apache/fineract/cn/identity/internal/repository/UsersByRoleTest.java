@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.repository;
+
+import com.datastax.driver.core.BatchStatement;
+import com.datastax.driver.core.BoundStatement;
+import com.datastax.driver.core.ExecutionInfo;
+import com.datastax.driver.core.PreparedStatement;
+import com.datastax.driver.core.RegularStatement;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.exceptions.InvalidQueryException;
+import java.util.Collections;
+import java.util.Optional;
+import org.apache.fineract.cn.cassandra.core.CassandraSessionProvider;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UsersByRoleTest {
+  private Session session;
+  private ResultSet resultSet;
+  private UsersByRole testSubject;
+
+  @Before
+  public void setup() {
+    final CassandraSessionProvider cassandraSessionProvider = Mockito.mock(CassandraSessionProvider.class);
+    session = Mockito.mock(Session.class);
+    when(cassandraSessionProvider.getTenantSession()).thenReturn(session);
+    final BoundStatement boundStatement = Mockito.mock(BoundStatement.class);
+    when(boundStatement.setFetchSize(Mockito.anyInt())).thenReturn(boundStatement);
+    final PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+    when(preparedStatement.bind(Mockito.<Object>anyVararg())).thenReturn(boundStatement);
+    when(session.prepare(any(RegularStatement.class))).thenReturn(preparedStatement);
+    when(session.executeAsync(any(Statement.class))).thenReturn(Mockito.mock(ResultSetFuture.class));
+
+    final Row row = Mockito.mock(Row.class);
+    when(row.getString(Users.IDENTIFIER_COLUMN)).thenReturn("user");
+    when(row.getString(Users.ROLE_COLUMN)).thenReturn("role");
+    when(row.getString(UsersByRole.USER_IDENTIFIER_COLUMN)).thenReturn("user");
+    resultSet = Mockito.mock(ResultSet.class);
+    when(resultSet.iterator()).thenAnswer(x -> Collections.singletonList(row).iterator());
+    when(resultSet.getAvailableWithoutFetching()).thenReturn(1);
+    when(resultSet.one()).thenReturn(row);
+    when(resultSet.getExecutionInfo()).thenReturn(Mockito.mock(ExecutionInfo.class));
+
+    testSubject = new UsersByRole(cassandraSessionProvider, new PreparedStatements(cassandraSessionProvider),
+        Mockito.mock(Logger.class));
+    TenantContextHolder.setIdentifier("mytenant");
+  }
+
+  @After
+  public void cleanup() {
+    TenantContextHolder.clear();
+  }
+
+  @Test
+  public void addIsBatchedWithTheUserWrite() {
+    final Statement userWrite = Mockito.mock(BoundStatement.class);
+
+    final Statement write = testSubject.withAdd(userWrite, "role", "user");
+
+    Assert.assertTrue(write instanceof BatchStatement);
+    Assert.assertEquals(2, ((BatchStatement) write).size());
+    Assert.assertTrue(((BatchStatement) write).getStatements().contains(userWrite));
+  }
+
+  @Test
+  public void moveWritesBothRolesInOneBatchWithTheUserWrite() {
+    final Statement userWrite = Mockito.mock(BoundStatement.class);
+
+    final Statement write = testSubject.withMove(userWrite, "user", "old", "new");
+
+    Assert.assertTrue(write instanceof BatchStatement);
+    Assert.assertEquals(3, ((BatchStatement) write).size());
+  }
+
+  @Test
+  public void userIsWrittenAloneBeforeTheTableExists() {
+    when(session.prepare(any(RegularStatement.class))).thenThrow(new InvalidQueryException("unconfigured table"));
+    final Statement userWrite = Mockito.mock(BoundStatement.class);
+
+    Assert.assertSame(userWrite, testSubject.withAdd(userWrite, "role", "user"));
+    Assert.assertSame(userWrite, testSubject.withMove(userWrite, "user", "old", "new"));
+  }
+
+  @Test
+  public void missingTableIsBackfilledOnFirstRead() {
+    when(session.execute(any(Statement.class)))
+        .thenThrow(new InvalidQueryException("unconfigured table"))
+        .thenReturn(resultSet);
+
+    final UsersByRole.Page page = testSubject.getPage("role", 10, Optional.empty());
+
+    Assert.assertEquals(Collections.singletonList("user"), page.getUserIdentifiers());
+    Assert.assertFalse(page.getNextPageToken().isPresent());
+    verify(session, times(1)).executeAsync(any(Statement.class));
+  }
+}
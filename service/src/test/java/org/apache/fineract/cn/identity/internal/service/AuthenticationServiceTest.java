@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.service;
+
+import org.apache.fineract.cn.anubis.security.AmitAuthenticationException;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.identity.internal.command.AuthenticationCommandResponse;
+import org.apache.fineract.cn.identity.internal.command.PasswordAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.command.RefreshTokenAuthenticationCommand;
+import org.apache.fineract.cn.identity.internal.command.handler.AuthenticationCommandHandler;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+public class AuthenticationServiceTest {
+  private AuthenticationCommandHandler authenticationCommandHandler;
+  private CommandGateway commandGateway;
+  private AuthenticationService testSubject;
+
+  @Before
+  public void setup() {
+    authenticationCommandHandler = Mockito.mock(AuthenticationCommandHandler.class);
+    commandGateway = Mockito.mock(CommandGateway.class);
+    testSubject = new AuthenticationService(authenticationCommandHandler, commandGateway, false,
+        Mockito.mock(Logger.class));
+  }
+
+  @Test
+  public void authenticationCallsHandlerDirectly() {
+    final PasswordAuthenticationCommand command = new PasswordAuthenticationCommand("ahmes", "fractions");
+    final AuthenticationCommandResponse response = Mockito.mock(AuthenticationCommandResponse.class);
+    Mockito.doReturn(response).when(authenticationCommandHandler).process(command);
+
+    Assert.assertSame(response, testSubject.authenticate(command));
+    Mockito.verifyZeroInteractions(commandGateway);
+  }
+
+  @Test(expected = AmitAuthenticationException.class)
+  public void failedAuthenticationIsPassedOn() {
+    final RefreshTokenAuthenticationCommand command = new RefreshTokenAuthenticationCommand("token");
+    Mockito.doThrow(AmitAuthenticationException.invalidToken()).when(authenticationCommandHandler).process(command);
+
+    testSubject.authenticate(command);
+  }
+
+  @Test
+  public void serviceExceptionIsPassedOn() {
+    final PasswordAuthenticationCommand command = new PasswordAuthenticationCommand("ahmes", "fractions");
+    Mockito.doThrow(ServiceException.notFound("missing")).when(authenticationCommandHandler).process(command);
+
+    try {
+      testSubject.authenticate(command);
+      Assert.fail("Service exception should reach the caller.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(404, e.serviceError().getCode());
+    }
+  }
+
+  @Test
+  public void unexpectedErrorBecomesInternalError() {
+    final PasswordAuthenticationCommand command = new PasswordAuthenticationCommand("ahmes", "fractions");
+    Mockito.doThrow(new IllegalStateException("broken")).when(authenticationCommandHandler).process(command);
+
+    try {
+      testSubject.authenticate(command);
+      Assert.fail("Unexpected errors should be reported as internal errors.");
+    }
+    catch (final ServiceException e) {
+      Assert.assertEquals(500, e.serviceError().getCode());
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.internal.service;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportReport;
+import org.apache.fineract.cn.identity.api.v1.domain.UserImportResult;
+import org.apache.fineract.cn.identity.api.v1.events.EventConstants;
+import org.apache.fineract.cn.identity.internal.command.handler.AsyncEventPublisher;
+import org.apache.fineract.cn.identity.internal.command.handler.UserEntityCreator;
+import org.apache.fineract.cn.identity.internal.repository.PrivateTenantInfoEntity;
+import org.apache.fineract.cn.identity.internal.repository.Tenants;
+import org.apache.fineract.cn.identity.internal.repository.UserEntity;
+import org.apache.fineract.cn.identity.internal.repository.Users;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserImportServiceTest {
+  private Users users;
+  private AsyncEventPublisher eventPublisher;
+  private UserImportService testSubject;
+
+  @Before
+  public void setup() {
+    users = Mockito.mock(Users.class);
+    eventPublisher = Mockito.mock(AsyncEventPublisher.class);
+
+    final PrivateTenantInfoEntity tenantInfo = new PrivateTenantInfoEntity();
+    tenantInfo.setFixedSalt(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+    tenantInfo.setPasswordExpiresInDays(93);
+    final Tenants tenants = Mockito.mock(Tenants.class);
+    when(tenants.getPrivateTenantInfo()).thenReturn(Optional.of(tenantInfo));
+
+    final UserEntityCreator userEntityCreator = Mockito.mock(UserEntityCreator.class);
+    when(userEntityCreator.buildAsync(any(), any(), any(), any(), anyBoolean(), any(), anyInt()))
+        .thenAnswer(invocation -> {
+          final UserEntity entity = new UserEntity();
+          entity.setIdentifier((String) invocation.getArguments()[1]);
+          entity.setRole((String) invocation.getArguments()[2]);
+          return CompletableFuture.completedFuture(entity);
+        });
+    when(users.addAsync(any())).thenReturn(CompletableFuture.completedFuture(null));
+    when(users.getAsync(any())).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+    testSubject = new UserImportService(users, tenants, userEntityCreator, eventPublisher,
+        new Gson(), Mockito.mock(Logger.class), 2);
+  }
+
+  @Test
+  public void newlineDelimitedUsersAreImported() {
+    final UserImportReport report = testSubject.importUsers(input(
+        "{\"identifier\":\"ahmes\",\"role\":\"scribe\",\"password\":\"fractions\"}\n"
+        + "{\"identifier\":\"imhotep\",\"role\":\"scribe\",\"password\":\"pyramids\"}\n"
+        + "{\"identifier\":\"hatshepsut\",\"role\":\"pharaoh\",\"password\":\"obelisks\"}\n"));
+
+    Assert.assertEquals(3, report.getImportedCount());
+    Assert.assertEquals(0, report.getRejectedCount());
+    Assert.assertNull(report.getError());
+    Assert.assertEquals("Rows are reported in order.",
+        new UserImportResult(3, "hatshepsut", UserImportResult.Status.IMPORTED, null), report.getResults().get(2));
+    verify(users, times(3)).addAsync(any());
+    verify(eventPublisher).publish(EventConstants.OPERATION_POST_USER, "imhotep");
+  }
+
+  @Test
+  public void rejectedRowsAreReportedAndNotWritten() {
+    final UserEntity antony = new UserEntity();
+    antony.setIdentifier("antony");
+    when(users.getAsync("antony")).thenReturn(CompletableFuture.completedFuture(Optional.of(antony)));
+
+    final UserImportReport report = testSubject.importUsers(input("["
+        + "{\"identifier\":\"antony\",\"role\":\"pharaoh\",\"password\":\"fractions\"},"
+        + "{\"identifier\":\"ahmes\",\"role\":\"scribe\",\"password\":\"short\"},"
+        + "{\"identifier\":\"imhotep\",\"role\":\"scribe\",\"password\":\"pyramids\"},"
+        + "{\"identifier\":\"imhotep\",\"role\":\"scribe\",\"password\":\"pyramids\"}"
+        + "]"));
+
+    Assert.assertEquals(1, report.getImportedCount());
+    Assert.assertEquals(3, report.getRejectedCount());
+    Assert.assertEquals(
+        Arrays.asList(
+            UserImportResult.Status.ALREADY_EXISTS,
+            UserImportResult.Status.INVALID,
+            UserImportResult.Status.IMPORTED,
+            UserImportResult.Status.ALREADY_EXISTS),
+        statuses(report));
+    verify(users, times(1)).addAsync(any());
+    verify(eventPublisher, never()).publish(EventConstants.OPERATION_POST_USER, "antony");
+  }
+
+  @Test
+  public void failedWriteIsReportedForItsRowOnly() {
+    final CompletableFuture<Void> failed = new CompletableFuture<>();
+    failed.completeExceptionally(new IllegalStateException("write timed out"));
+    when(users.addAsync(any())).thenReturn(failed).thenReturn(CompletableFuture.completedFuture(null));
+
+    final UserImportReport report = testSubject.importUsers(input(
+        "{\"identifier\":\"ahmes\",\"role\":\"scribe\",\"password\":\"fractions\"}\n"
+        + "{\"identifier\":\"imhotep\",\"role\":\"scribe\",\"password\":\"pyramids\"}\n"));
+
+    Assert.assertEquals(
+        Arrays.asList(UserImportResult.Status.FAILED, UserImportResult.Status.IMPORTED),
+        statuses(report));
+    verify(eventPublisher, never()).publish(EventConstants.OPERATION_POST_USER, "ahmes");
+  }
+
+  @Test
+  public void rowsBeforeUnreadableInputAreImported() {
+    final UserImportReport report = testSubject.importUsers(input(
+        "{\"identifier\":\"ahmes\",\"role\":\"scribe\",\"password\":\"fractions\"}\n"
+        + "{\"identifier\":\"imhotep\",\"role\":"));
+
+    Assert.assertEquals(1, report.getImportedCount());
+    Assert.assertNotNull(report.getError());
+  }
+
+  @Test(expected = ServiceException.class)
+  public void unreadableInputIsRefused() {
+    testSubject.importUsers(input("not json at all {"));
+  }
+
+  private static List<UserImportResult.Status> statuses(final UserImportReport report) {
+    return report.getResults().stream().map(UserImportResult::getStatus).collect(Collectors.toList());
+  }
+
+  private static InputStream input(final String json) {
+    return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.identity.rest;
+
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+public class LoginThrottleTest {
+  @Test
+  public void burstOfUserLoginsIsAllowedThenRejected() {
+    final LoginThrottle testSubject = new LoginThrottle(true, 0.001, 3, 16, 1000, 1000, 16);
+
+    for (int i = 0; i < 3; i++)
+      Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+
+    final Optional<Duration> retryAfter = testSubject.tryAcquire("tenant", "ahmes");
+    Assert.assertTrue(retryAfter.isPresent());
+    Assert.assertTrue(retryAfter.get().getSeconds() > 0);
+  }
+
+  @Test
+  public void successfulLoginsDoNotCountAgainstTheUser() {
+    final LoginThrottle testSubject = new LoginThrottle(true, 0.001, 1, 16, 1000, 1000, 16);
+
+    for (int i = 0; i < 10; i++) {
+      Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+      testSubject.succeeded("tenant", "ahmes");
+    }
+    Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+    Assert.assertTrue(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+  }
+
+  @Test
+  public void usersOfOtherTenantsAreNotAffected() {
+    final LoginThrottle testSubject = new LoginThrottle(true, 0.001, 1, 1 << 16, 1000, 1000, 16);
+
+    Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+    Assert.assertTrue(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+    Assert.assertFalse(testSubject.tryAcquire("other", "ahmes").isPresent());
+  }
+
+  @Test
+  public void tenantLimitAppliesAcrossUsers() {
+    final LoginThrottle testSubject = new LoginThrottle(true, 1000, 1000, 1 << 16, 0.001, 2, 16);
+
+    Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+    Assert.assertFalse(testSubject.tryAcquire("tenant", "antony").isPresent());
+    Assert.assertTrue(testSubject.tryAcquire("tenant", "cleopatra").isPresent());
+  }
+
+  @Test
+  public void attemptsRejectedForTheTenantDoNotCountAgainstTheUser() {
+    final LoginThrottle testSubject = new LoginThrottle(true, 0.001, 2, 1 << 16, 0.001, 1, 16);
+
+    Assert.assertFalse(testSubject.tryAcquire("tenant", "antony").isPresent());
+    for (int i = 0; i < 10; i++)
+      Assert.assertTrue(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+
+    final Optional<Metric<?>> rejectedForUser = testSubject.metrics().stream()
+        .filter(x -> x.getName().equals("identity.loginThrottle.rejected.user"))
+        .findAny();
+    Assert.assertTrue(rejectedForUser.isPresent());
+    Assert.assertEquals("The user's bucket should be untouched.", 0L, rejectedForUser.get().getValue().longValue());
+  }
+
+  @Test
+  public void disabledThrottleAllowsEverything() {
+    final LoginThrottle testSubject = new LoginThrottle(false, 0.001, 1, 16, 0.001, 1, 16);
+
+    for (int i = 0; i < 10; i++)
+      Assert.assertFalse(testSubject.tryAcquire("tenant", "ahmes").isPresent());
+  }
+}